@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({ "3", "100", "1000" })
+    public int doors;
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        this.game = createGame();
+    }
+
+    @Benchmark
+    public Game lifecycle() throws IllegalTransitionException, DoorDoesNotExistException {
+        Game game = createGame();
+        game.select(0L);
+        game.open(2L);
+        return game;
+    }
+
+    // The host opens every door but the winner, however many there are
+    @Benchmark
+    public Game lifecycleNumbered() throws IllegalTransitionException, DoorDoesNotExistException {
+        Game game = new Game(0L, this.doors, this.doors - 1, this.doors - 2, null);
+        game.select(0L);
+        game.open(Long.valueOf(this.doors - 1));
+        return game;
+    }
+
+    @Benchmark
+    public Set<Door> getDoors() {
+        return this.game.getDoors();
+    }
+
+    @Benchmark
+    public GameStatus getStatus() {
+        return this.game.getStatus();
+    }
+
+    private static Game createGame() {
+        Set<Door> doors = new HashSet<Door>();
+        doors.add(new Door(0L, DoorContent.SMALL_FURRY_ANIMAL));
+        doors.add(new Door(1L, DoorContent.SMALL_FURRY_ANIMAL));
+        doors.add(new Door(2L, DoorContent.JUERGEN));
+        return new Game(0L, doors);
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameRepository;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameRepositoryBenchmark {
+
+    private static final int GAME_COUNT = 100000;
+
+    @Param({ "synchronized", "concurrent", "compact", "persistent" })
+    public String repository;
+
+    private final Long[] ids = new Long[GAME_COUNT];
+
+    private GameRepository gameRepository;
+
+    private File logDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        GameFactory gameFactory = new GameFactory(new ThreadLocalWinnerPlacement(), new StripedGameStatistics(), 3, -1);
+
+        if ("synchronized".equals(this.repository)) {
+            this.gameRepository = new InMemoryGameRepository(gameFactory);
+        } else if ("concurrent".equals(this.repository)) {
+            this.gameRepository = new ConcurrentGameRepository(gameFactory, Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, 1000);
+        } else if ("compact".equals(this.repository)) {
+            this.gameRepository = new CompactGameRepository(gameFactory, false);
+        } else {
+            this.logDirectory = Files.createTempDirectory("game-log").toFile();
+            PersistentGameRepository gameRepository = new PersistentGameRepository(gameFactory, this.logDirectory, 64 * 1024 * 1024, 10,
+                Long.MAX_VALUE, Long.MAX_VALUE, 1000);
+            gameRepository.start();
+            this.gameRepository = gameRepository;
+        }
+
+        for (int i = 0; i < GAME_COUNT; i++) {
+            this.ids[i] = this.gameRepository.create().getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (this.gameRepository instanceof PersistentGameRepository) {
+            ((PersistentGameRepository) this.gameRepository).stop();
+            for (File file : this.logDirectory.listFiles()) {
+                Files.delete(file.toPath());
+            }
+            Files.delete(this.logDirectory.toPath());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Game retrieve(Cursor cursor) throws GameDoesNotExistException {
+        return this.gameRepository.retrieve(cursor.next(this.ids));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Game retrieveContended(Cursor cursor) throws GameDoesNotExistException {
+        return this.gameRepository.retrieve(cursor.next(this.ids));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object retrieveMissing() {
+        try {
+            return this.gameRepository.retrieve(-1L);
+        } catch (GameDoesNotExistException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Game createAndRemove() throws GameDoesNotExistException {
+        Game game = this.gameRepository.create();
+        this.gameRepository.remove(game.getId());
+        return game;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Game createAndRemoveContended() throws GameDoesNotExistException {
+        Game game = this.gameRepository.create();
+        this.gameRepository.remove(game.getId());
+        return game;
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        Long next(Long[] ids) {
+            if (this.next == ids.length) {
+                this.next = 0;
+            }
+            return ids[this.next++];
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+import com.nebhale.letsmakeadeal.Door;
+import com.nebhale.letsmakeadeal.DoorContent;
+import com.nebhale.letsmakeadeal.Game;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepresentationBenchmark {
+
+    private static final String GAMES_URI = "http://localhost/games";
+
+    private final RepresentationWriter representationWriter = new RepresentationWriter();
+
+    private final RepresentationCache representationCache = new RepresentationCache(this.representationWriter, 16);
+
+    // Reset rather than reallocated by each benchmark, as a response's buffer would be
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        Set<Door> doors = new HashSet<Door>();
+        doors.add(new Door(0L, DoorContent.SMALL_FURRY_ANIMAL));
+        doors.add(new Door(1L, DoorContent.SMALL_FURRY_ANIMAL));
+        doors.add(new Door(2L, DoorContent.JUERGEN));
+        this.game = new Game(0L, doors);
+    }
+
+    @Benchmark
+    public int streamedGameRepresentation() throws IOException {
+        this.out.reset();
+        this.representationWriter.write(new Representation(Representation.Type.GAME, this.game, this.game.getState(), GAMES_URI),
+            MediaType.APPLICATION_JSON, this.out);
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int streamedDoorsRepresentation() throws IOException {
+        this.out.reset();
+        this.representationWriter.write(new Representation(Representation.Type.DOORS, this.game, this.game.getState(), GAMES_URI),
+            MediaType.APPLICATION_JSON, this.out);
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int streamedDoorsXmlRepresentation() throws IOException {
+        this.out.reset();
+        this.representationWriter.write(new Representation(Representation.Type.DOORS, this.game, this.game.getState(), GAMES_URI),
+            MediaType.TEXT_XML, this.out);
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int cachedGameRepresentation() throws IOException {
+        this.out.reset();
+        this.representationCache.write(new Representation(Representation.Type.GAME, this.game, this.game.getState(), GAMES_URI),
+            MediaType.APPLICATION_JSON, this.out);
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int cachedDoorsRepresentation() throws IOException {
+        this.out.reset();
+        this.representationCache.write(new Representation(Representation.Type.DOORS, this.game, this.game.getState(), GAMES_URI),
+            MediaType.APPLICATION_JSON, this.out);
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int binaryDoorsRepresentation() throws IOException {
+        this.out.reset();
+        BinaryRepresentation.write(new Representation(Representation.Type.DOORS, this.game, this.game.getState(), GAMES_URI), this.out);
+        return this.out.size();
+    }
+
+}
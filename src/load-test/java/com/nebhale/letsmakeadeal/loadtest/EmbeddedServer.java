@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.loadtest;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+final class EmbeddedServer {
+
+    private static final String CONTEXT_PATH = "/lets-make-a-deal";
+
+    private static final String HOST = "127.0.0.1";
+
+    private final Server server;
+
+    private final String gamesUri;
+
+    private EmbeddedServer(Server server, String gamesUri) {
+        this.server = server;
+        this.gamesUri = gamesUri;
+    }
+
+    static EmbeddedServer start(String profile) throws Exception {
+        if (profile != null) {
+            System.setProperty("spring.profiles.active", profile);
+        }
+
+        SelectChannelConnector connector = new SelectChannelConnector();
+        connector.setHost(HOST);
+        connector.setPort(0);
+
+        WebAppContext webApp = new WebAppContext("src/main/webapp", CONTEXT_PATH);
+        webApp.setParentLoaderPriority(true);
+
+        Server server = new Server();
+        server.addConnector(connector);
+        server.setHandler(webApp);
+        server.start();
+
+        return new EmbeddedServer(server, String.format("http://%s:%d%s/games", HOST, connector.getLocalPort(), CONTEXT_PATH));
+    }
+
+    String getGamesUri() {
+        return this.gamesUri;
+    }
+
+    void stop() throws Exception {
+        this.server.stop();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.loadtest;
+
+enum Endpoint {
+
+    CREATE_GAME("POST   /games"), //
+    SHOW_GAME("GET    /games/{gameId}"), //
+    SHOW_DOORS("GET    /games/{gameId}/doors"), //
+    SELECT_DOOR("POST   /games/{gameId}/doors/{doorId} SELECTED"), //
+    OPEN_DOOR("POST   /games/{gameId}/doors/{doorId} OPEN"), //
+    DESTROY_GAME("DELETE /games/{gameId}");
+
+    private final String description;
+
+    private Endpoint(String description) {
+        this.description = description;
+    }
+
+    String getDescription() {
+        return this.description;
+    }
+}
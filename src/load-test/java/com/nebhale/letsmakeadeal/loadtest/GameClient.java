@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+final class GameClient {
+
+    static final long UNSCHEDULED = Long.MAX_VALUE;
+
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toMicros(10);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final byte[] SELECT = "{ \"status\": \"SELECTED\" }".getBytes();
+
+    private static final byte[] OPEN = "{ \"status\": \"OPEN\" }".getBytes();
+
+    private final String gamesUri;
+
+    private final long thinkTime;
+
+    private final long expectedInterval;
+
+    private final Random random;
+
+    private final Map<Endpoint, Histogram> histograms = new EnumMap<Endpoint, Histogram>(Endpoint.class);
+
+    private final Map<Endpoint, long[]> errors = new EnumMap<Endpoint, long[]>(Endpoint.class);
+
+    private boolean recording;
+
+    private long games;
+
+    // expectedInterval is how often, in milliseconds, requests are meant to be sent when nothing stalls, and zero for no correction
+    GameClient(String gamesUri, long thinkTime, long expectedInterval, Random random) {
+        this.gamesUri = gamesUri;
+        this.thinkTime = thinkTime;
+        this.expectedInterval = TimeUnit.MILLISECONDS.toMicros(expectedInterval);
+        this.random = random;
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            this.histograms.put(endpoint, new Histogram(HIGHEST_TRACKABLE_LATENCY, 3));
+            this.errors.put(endpoint, new long[1]);
+        }
+    }
+
+    void play(long intendedStart) throws IOException, InterruptedException {
+        String gameLocation = request(Endpoint.CREATE_GAME, "POST", this.gamesUri, null, intendedStart).location;
+        String doorsLocation = link(json(request(Endpoint.SHOW_GAME, "GET", gameLocation, null, UNSCHEDULED)), "doors");
+
+        List<String> doors = doors(json(request(Endpoint.SHOW_DOORS, "GET", doorsLocation, null, UNSCHEDULED)), null);
+        request(Endpoint.SELECT_DOOR, "POST", doors.get(this.random.nextInt(doors.size())), SELECT, UNSCHEDULED);
+
+        JsonNode selected = json(request(Endpoint.SHOW_DOORS, "GET", doorsLocation, null, UNSCHEDULED));
+        List<String> candidates = doors(selected, "CLOSED");
+        if (this.random.nextBoolean()) {
+            candidates = doors(selected, "SELECTED");
+        }
+        request(Endpoint.OPEN_DOOR, "POST", candidates.get(0), OPEN, UNSCHEDULED);
+
+        request(Endpoint.SHOW_GAME, "GET", gameLocation, null, UNSCHEDULED);
+        request(Endpoint.DESTROY_GAME, "DELETE", gameLocation, null, UNSCHEDULED);
+
+        if (this.recording) {
+            this.games++;
+        }
+    }
+
+    void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    long getGames() {
+        return this.games;
+    }
+
+    Histogram getHistogram(Endpoint endpoint) {
+        return this.histograms.get(endpoint);
+    }
+
+    long getErrors(Endpoint endpoint) {
+        return this.errors.get(endpoint)[0];
+    }
+
+    private Response request(Endpoint endpoint, String method, String uri, byte[] body, long intendedStart) throws IOException,
+        InterruptedException {
+        if (intendedStart == UNSCHEDULED && this.thinkTime > 0) {
+            Thread.sleep(this.thinkTime);
+        }
+
+        long start = System.nanoTime();
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(uri).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            OutputStream out = connection.getOutputStream();
+            try {
+                out.write(body);
+            } finally {
+                out.close();
+            }
+        }
+
+        int status = connection.getResponseCode();
+        byte[] content = readFully(status >= 400 ? connection.getErrorStream() : connection.getInputStream());
+        long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - Math.min(start, intendedStart));
+
+        if (this.recording) {
+            this.histograms.get(endpoint).recordValueWithExpectedInterval(Math.min(latency, HIGHEST_TRACKABLE_LATENCY), this.expectedInterval);
+        }
+
+        if (status >= 400) {
+            if (this.recording) {
+                this.errors.get(endpoint)[0]++;
+            }
+            throw new IOException(String.format("%s %s returned %d: %s", method, uri, status, new String(content, "UTF-8")));
+        }
+
+        return new Response(connection.getHeaderField("Location"), content);
+    }
+
+    private static JsonNode json(Response response) throws IOException {
+        return MAPPER.readTree(response.content);
+    }
+
+    private static String link(JsonNode payload, String rel) {
+        for (JsonNode link : payload.path("links")) {
+            if (rel.equals(link.path("rel").getTextValue())) {
+                return link.path("href").getTextValue();
+            }
+        }
+
+        throw new IllegalStateException(String.format("No link with rel '%s' in %s", rel, payload));
+    }
+
+    private static List<String> doors(JsonNode payload, String status) {
+        List<String> doors = new ArrayList<String>();
+        for (JsonNode door : payload.path("doors")) {
+            if (status == null || status.equals(door.path("status").getTextValue())) {
+                doors.add(link(door, "self"));
+            }
+        }
+        return doors;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return new byte[0];
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static final class Response {
+
+        private final String location;
+
+        private final byte[] content;
+
+        private Response(String location, byte[] content) {
+            this.location = location;
+            this.content = content;
+        }
+    }
+}
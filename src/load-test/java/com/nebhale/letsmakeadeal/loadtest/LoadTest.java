@@ -0,0 +1,180 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+public final class LoadTest {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final LoadTestOptions options;
+
+    private final String gamesUri;
+
+    private LoadTest(LoadTestOptions options, String gamesUri) {
+        this.options = options;
+        this.gamesUri = gamesUri;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        System.setProperty("http.maxConnections", String.valueOf(options.getConcurrency()));
+
+        EmbeddedServer server = null;
+        String gamesUri = options.getUrl();
+        if (gamesUri == null) {
+            server = EmbeddedServer.start(options.getProfile());
+            gamesUri = server.getGamesUri();
+        }
+
+        try {
+            new LoadTest(options, gamesUri).run();
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private void run() throws InterruptedException {
+        System.out.printf("Driving %s with %s%n", this.gamesUri, this.options);
+
+        int concurrency = this.options.getConcurrency();
+        boolean open = LoadTestOptions.OPEN.equals(this.options.getModel());
+        long interval = open ? (TimeUnit.SECONDS.toNanos(1) * concurrency) / this.options.getRate() : 0;
+
+        // The open model measures each game from when it was scheduled to start.  The closed model has no schedule, so the requests
+        // that a stalled client did not send are filled in from the interval it meant to send them at, if it has one.
+        long expectedInterval = open ? 0 : this.options.getThinkTime() + this.options.getServiceInterval();
+        boolean corrected = open || expectedInterval > 0;
+
+        long start = System.nanoTime();
+        long measurementStart = start + TimeUnit.SECONDS.toNanos(this.options.getWarmup());
+        long end = measurementStart + TimeUnit.SECONDS.toNanos(this.options.getDuration());
+
+        List<GameClient> clients = new ArrayList<GameClient>();
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                GameClient client = new GameClient(this.gamesUri, this.options.getThinkTime(), expectedInterval, new Random());
+                clients.add(client);
+                workers.add(executor.submit(new Worker(client, start + ((interval * i) / concurrency), interval, measurementStart, end)));
+            }
+
+            for (Future<Void> worker : workers) {
+                try {
+                    worker.get();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report(clients, TimeUnit.NANOSECONDS.toMillis(end - measurementStart) / 1000.0, corrected);
+    }
+
+    private void report(List<GameClient> clients, double seconds, boolean corrected) {
+        long games = 0;
+        for (GameClient client : clients) {
+            games += client.getGames();
+        }
+
+        System.out.printf("%nGames: %d (%.1f/s)%n%n", games, games / seconds);
+        System.out.printf("%-48s %10s %8s %10s", "Endpoint", "Requests", "Errors", "Req/s");
+        for (double percentile : PERCENTILES) {
+            System.out.printf(" %9s", "p" + percentile);
+        }
+        System.out.printf(" %9s  (latencies in ms, %s)%n", "max", corrected ? "corrected for coordinated omission"
+            : "not corrected for coordinated omission; set think-time or service-interval, or use the open model");
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = new Histogram(TimeUnit.MINUTES.toMicros(10), 3);
+            long errors = 0;
+            for (GameClient client : clients) {
+                histogram.add(client.getHistogram(endpoint));
+                errors += client.getErrors(endpoint);
+            }
+
+            System.out.printf("%-48s %10d %8d %10.1f", endpoint.getDescription(), histogram.getTotalCount(), errors, histogram.getTotalCount()
+                / seconds);
+            for (double percentile : PERCENTILES) {
+                System.out.printf(" %9.3f", histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            System.out.printf(" %9.3f%n", histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    private static final class Worker implements Callable<Void> {
+
+        private final GameClient client;
+
+        private final long firstStart;
+
+        private final long interval;
+
+        private final long measurementStart;
+
+        private final long end;
+
+        private Worker(GameClient client, long firstStart, long interval, long measurementStart, long end) {
+            this.client = client;
+            this.firstStart = firstStart;
+            this.interval = interval;
+            this.measurementStart = measurementStart;
+            this.end = end;
+        }
+
+        public Void call() throws InterruptedException {
+            for (long game = 0;; game++) {
+                long intendedStart = GameClient.UNSCHEDULED;
+                if (this.interval > 0) {
+                    intendedStart = this.firstStart + (game * this.interval);
+                    long delay = intendedStart - System.nanoTime();
+                    if (delay > 0) {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                }
+
+                long now = System.nanoTime();
+                if (now >= this.end) {
+                    return null;
+                }
+                this.client.setRecording((intendedStart == GameClient.UNSCHEDULED ? now : intendedStart) >= this.measurementStart);
+
+                try {
+                    this.client.play(intendedStart);
+                } catch (IOException e) {
+                    // recorded as an error against the endpoint that failed
+                }
+            }
+        }
+    }
+}
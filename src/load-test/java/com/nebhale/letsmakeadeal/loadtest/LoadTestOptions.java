@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+final class LoadTestOptions {
+
+    static final String CLOSED = "closed";
+
+    static final String OPEN = "open";
+
+    private final Map<String, String> options;
+
+    private LoadTestOptions(Map<String, String> options) {
+        this.options = options;
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> options = new HashMap<String, String>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index < 1) {
+                throw new IllegalArgumentException(String.format("'%s' is not of the form key=value", arg));
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+
+        LoadTestOptions loadTestOptions = new LoadTestOptions(options);
+        if (!CLOSED.equals(loadTestOptions.getModel()) && !OPEN.equals(loadTestOptions.getModel())) {
+            throw new IllegalArgumentException(String.format("'%s' is an illegal value for 'model'", loadTestOptions.getModel()));
+        }
+
+        return loadTestOptions;
+    }
+
+    String getUrl() {
+        return this.options.get("url");
+    }
+
+    String getProfile() {
+        return this.options.get("profile");
+    }
+
+    int getConcurrency() {
+        return getInt("concurrency", 16);
+    }
+
+    String getModel() {
+        return get("model", CLOSED);
+    }
+
+    int getRate() {
+        return getInt("rate", 1000);
+    }
+
+    long getThinkTime() {
+        return getInt("think-time", 0);
+    }
+
+    // The response time, in milliseconds, that closed model clients are meant to see, used with think-time to correct for
+    // coordinated omission
+    long getServiceInterval() {
+        return getInt("service-interval", 0);
+    }
+
+    int getWarmup() {
+        return getInt("warmup", 5);
+    }
+
+    int getDuration() {
+        return getInt("duration", 30);
+    }
+
+    private String get(String key, String defaultValue) {
+        String value = this.options.get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    private int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+    }
+
+    public String toString() {
+        return String.format("model=%s concurrency=%d rate=%d think-time=%dms service-interval=%dms warmup=%ds duration=%ds", getModel(),
+            getConcurrency(), getRate(), getThinkTime(), getServiceInterval(), getWarmup(), getDuration());
+    }
+}
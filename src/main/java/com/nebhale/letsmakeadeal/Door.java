@@ -22,16 +22,21 @@ public final class Door implements Identifiable<Long> {
 
     private final Long id;
 
-    private final Object monitor = new Object();
+    private final DoorContent content;
 
-    private volatile DoorContent content;
+    private final Game game;
 
-    private volatile DoorStatus status;
+    private final int index;
 
     public Door(Long id, DoorContent content) {
+        this(id, content, null, -1);
+    }
+
+    Door(Long id, DoorContent content, Game game, int index) {
         this.id = id;
         this.content = content;
-        this.status = DoorStatus.CLOSED;
+        this.game = game;
+        this.index = index;
     }
 
     public Long getId() {
@@ -39,27 +44,20 @@ public final class Door implements Identifiable<Long> {
     }
 
     public DoorContent getContent() {
-        synchronized (this.monitor) {
-            if (this.status == DoorStatus.OPEN) {
-                return this.content;
-            }
-            return DoorContent.UNKNOWN;
+        if (this.game != null && this.game.getDoorStatus(this.index) == DoorStatus.OPEN) {
+            return this.content;
         }
+        return DoorContent.UNKNOWN;
     }
 
     public DoorStatus getStatus() {
-        synchronized (this.monitor) {
-            return this.status;
+        if (this.game == null) {
+            return DoorStatus.CLOSED;
         }
+        return this.game.getDoorStatus(this.index);
     }
 
     DoorContent peekContent() {
         return this.content;
     }
-
-    void setStatus(DoorStatus status) {
-        synchronized (this.monitor) {
-            this.status = status;
-        }
-    }
 }
@@ -20,9 +20,17 @@ public final class DoorDoesNotExistException extends Exception {
 
     private static final long serialVersionUID = 2092342614756796723L;
 
-    private static final String MESSAGE_FORMAT = "Door '%d' in game '%d' does not exist";
+    private final Long gameId;
+
+    private final Long doorId;
 
     public DoorDoesNotExistException(Long gameId, Long doorId) {
-        super(String.format(MESSAGE_FORMAT, doorId, gameId));
+        super(null, null, false, false);
+        this.gameId = gameId;
+        this.doorId = doorId;
+    }
+
+    public String getMessage() {
+        return "Door '" + this.doorId + "' in game '" + this.gameId + "' does not exist";
     }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal;
+
+public final class DoorTransition {
+
+    private final Long doorId;
+
+    private final DoorStatus status;
+
+    public DoorTransition(Long doorId, DoorStatus status) {
+        this.doorId = doorId;
+        this.status = status;
+    }
+
+    public Long getDoorId() {
+        return this.doorId;
+    }
+
+    public DoorStatus getStatus() {
+        return this.status;
+    }
+
+}
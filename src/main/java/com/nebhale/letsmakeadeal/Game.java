@@ -16,68 +16,282 @@
 
 package com.nebhale.letsmakeadeal;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Identifiable;
 
 public final class Game implements Identifiable<Long> {
 
+    // | version: 10 bits | final door: 12 bits | hint rotation: 12 bits | selected door: 12 bits | status: 2 bits |
+    // The version is the most significant field so that a later state of a game always compares greater than an earlier one.
+    private static final int STATUS_BITS = 2;
+
+    private static final int INDEX_BITS = 12;
+
+    private static final int VERSION_BITS = 10;
+
+    private static final int SELECTED_SHIFT = STATUS_BITS;
+
+    private static final int HINT_SHIFT = SELECTED_SHIFT + INDEX_BITS;
+
+    private static final int FINAL_SHIFT = HINT_SHIFT + INDEX_BITS;
+
+    private static final int VERSION_SHIFT = FINAL_SHIFT + INDEX_BITS;
+
+    public static final int STATE_BITS = VERSION_SHIFT + VERSION_BITS;
+
+    private static final long STATUS_MASK = (1L << STATUS_BITS) - 1;
+
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private static final long VERSION_MASK = (1L << VERSION_BITS) - 1;
+
+    // | finished: 32 bits | selected: 32 bits |, each the milliseconds after the game was constructed plus one, or zero when the
+    // transition happened before the game was constructed (or has not yet been recorded)
+    private static final int TIME_BITS = 32;
+
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private static final int RECORDED_TRANSITIONS = Long.SIZE / TIME_BITS;
+
+    private static final int NO_DOOR = (int) INDEX_MASK;
+
+    public static final int MAX_DOORS = NO_DOOR - 1;
+
+    // The games built from a set of doors predate configurable hints and open a single hint door whenever they have more than two
+    private static final int SET_HINT_DOORS = 1;
+
+    private static final long INITIAL_STATE = GameStatus.AWAITING_INITIAL_SELECTION.ordinal();
+
+    private static final GameStatus[] GAME_STATUSES = GameStatus.values();
+
+    private static final GameListener[] NO_LISTENERS = new GameListener[0];
+
+    // Shared, as there are far too many games for each to hold a logger
+    private static final Logger LOGGER = LoggerFactory.getLogger(Game.class);
+
+    private static final AtomicLongFieldUpdater<Game> STATE = AtomicLongFieldUpdater.newUpdater(Game.class, "state");
+
+    private static final AtomicLongFieldUpdater<Game> TRANSITION_TIMES = AtomicLongFieldUpdater.newUpdater(Game.class, "transitionTimes");
+
+    private static final AtomicReferenceFieldUpdater<Game, GameListener[]> LISTENERS = AtomicReferenceFieldUpdater.newUpdater(Game.class,
+        GameListener[].class, "listeners");
+
+    private static final Comparator<Door> BY_ID = new Comparator<Door>() {
+
+        public int compare(Door door1, Door door2) {
+            return door1.getId().compareTo(door2.getId());
+        }
+    };
+
     private final Long id;
 
-    private final Map<Long, Door> doors;
+    // Null for games whose doors are numbered from zero, whose Door views are created on demand from the winner's index
+    private final Door[] doors;
+
+    private final int doorCount;
+
+    private final int winner;
+
+    private final int hintDoors;
+
+    private final int hostChoice;
+
+    private final boolean contiguousDoorIds;
+
+    private final long firstDoorId;
+
+    private final boolean restored;
+
+    private final GameCompletionListener completionListener;
+
+    private volatile long state;
+
+    private volatile long lastModified = System.currentTimeMillis();
+
+    private final long constructed = this.lastModified;
 
-    private final Object monitor = new Object();
+    private volatile long transitionTimes;
 
-    private volatile GameStatus status;
+    private volatile GameListener[] listeners = NO_LISTENERS;
 
     public Game(Long id, Set<Door> doors) {
+        this(id, doors, INITIAL_STATE, false, null);
+    }
+
+    public Game(Long id, Set<Door> doors, GameCompletionListener completionListener) {
+        this(id, doors, INITIAL_STATE, false, completionListener);
+    }
+
+    public Game(Long id, Set<Door> doors, long state) {
+        this(id, doors, state, true, null);
+    }
+
+    public Game(Long id, Set<Door> doors, long state, GameCompletionListener completionListener) {
+        this(id, doors, state, true, completionListener);
+    }
+
+    // Doors numbered from zero, behind one of which is the winner.  After the initial selection the host opens hintDoors of the
+    // others, never the winner.
+    public Game(Long id, int doorCount, int winner, int hintDoors, GameCompletionListener completionListener) {
+        this(id, doorCount, winner, hintDoors, 0, INITIAL_STATE, false, completionListener);
+    }
+
+    // hostChoice is any non-negative random value, drawn as the winner is, from which the host picks the doors to open whenever it
+    // has a choice.  Games that are dealt without one always make the same choice.
+    public Game(Long id, int doorCount, int winner, int hintDoors, int hostChoice, GameCompletionListener completionListener) {
+        this(id, doorCount, winner, hintDoors, hostChoice, INITIAL_STATE, false, completionListener);
+    }
+
+    public Game(Long id, int doorCount, int winner, int hintDoors, int hostChoice, long state,
+        GameCompletionListener completionListener) {
+        this(id, doorCount, winner, hintDoors, hostChoice, state, true, completionListener);
+    }
+
+    private Game(Long id, Set<Door> doors, long state, boolean restored, GameCompletionListener completionListener) {
+        if (doors.size() > MAX_DOORS) {
+            throw new IllegalArgumentException("A game cannot have more than " + MAX_DOORS + " doors");
+        }
+
         this.id = id;
 
-        this.doors = new HashMap<Long, Door>();
-        for (Door door : doors) {
-            this.doors.put(door.getId(), door);
+        Door[] sorted = doors.toArray(new Door[doors.size()]);
+        Arrays.sort(sorted, BY_ID);
+
+        int winner = NO_DOOR;
+        this.doors = new Door[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            this.doors[i] = new Door(sorted[i].getId(), sorted[i].peekContent(), this, i);
+            if (winner == NO_DOOR && DoorContent.JUERGEN == sorted[i].peekContent()) {
+                winner = i;
+            }
         }
 
-        this.status = GameStatus.AWAITING_INITIAL_SELECTION;
+        this.doorCount = sorted.length;
+        this.winner = winner;
+        this.hintDoors = Math.min(SET_HINT_DOORS, Math.max(0, sorted.length - 2));
+        this.hostChoice = 0;
+        this.contiguousDoorIds = this.doors.length > 0
+            && (this.doors[this.doors.length - 1].getId() - this.doors[0].getId() == this.doors.length - 1);
+        this.firstDoorId = this.doors.length > 0 ? this.doors[0].getId() : 0;
+
+        this.restored = restored;
+        this.completionListener = completionListener;
+        this.state = state;
     }
 
-    public void select(Long doorId) throws IllegalTransitionException, DoorDoesNotExistException {
-        synchronized (this.monitor) {
-            if (this.status != GameStatus.AWAITING_INITIAL_SELECTION) {
-                throw new IllegalTransitionException(this.id, this.status, GameStatus.AWAITING_FINAL_SELECTION);
+    private Game(Long id, int doorCount, int winner, int hintDoors, int hostChoice, long state, boolean restored,
+        GameCompletionListener completionListener) {
+        if (doorCount < 1 || doorCount > MAX_DOORS) {
+            throw new IllegalArgumentException("A game must have between 1 and " + MAX_DOORS + " doors");
+        }
+        if (winner < 0 || winner >= doorCount) {
+            throw new IllegalArgumentException("The winning door must be between 0 and " + (doorCount - 1));
+        }
+        if (hintDoors < 0 || hintDoors > Math.max(0, doorCount - 2)) {
+            throw new IllegalArgumentException("The host can open between 0 and " + Math.max(0, doorCount - 2) + " doors");
+        }
+        if (hostChoice < 0) {
+            throw new IllegalArgumentException("The host's choice cannot be negative");
+        }
+
+        this.id = id;
+        this.doors = null;
+        this.doorCount = doorCount;
+        this.winner = winner;
+        this.hintDoors = hintDoors;
+        this.hostChoice = hostChoice;
+        this.contiguousDoorIds = true;
+        this.firstDoorId = 0;
+
+        this.restored = restored;
+        this.completionListener = completionListener;
+        this.state = state;
+    }
+
+    public void addListener(GameListener listener) {
+        GameListener[] current;
+        GameListener[] next;
+        do {
+            current = this.listeners;
+            next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = listener;
+        } while (!LISTENERS.compareAndSet(this, current, next));
+    }
+
+    public void removeListener(GameListener listener) {
+        GameListener[] current;
+        GameListener[] next;
+        do {
+            current = this.listeners;
+
+            int index = Arrays.asList(current).indexOf(listener);
+            if (index < 0) {
+                return;
             }
 
-            Door door = getDoor(doorId);
-            door.setStatus(DoorStatus.SELECTED);
+            next = new GameListener[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, next.length - index);
+        } while (!LISTENERS.compareAndSet(this, current, next));
+    }
 
-            openHintDoor();
+    public void select(Long doorId) throws IllegalTransitionException, DoorDoesNotExistException {
+        long current;
+        long next;
+        do {
+            current = this.state;
+            next = selected(current, doorId);
+        } while (!STATE.compareAndSet(this, current, next));
 
-            this.status = GameStatus.AWAITING_FINAL_SELECTION;
-        }
+        changed(current, next);
     }
 
     public void open(Long doorId) throws IllegalTransitionException, DoorDoesNotExistException {
-        synchronized (this.monitor) {
-            if (this.status != GameStatus.AWAITING_FINAL_SELECTION) {
-                throw new IllegalTransitionException(this.id, this.status, GameStatus.WON);
-            }
+        long current;
+        long next;
+        do {
+            current = this.state;
+            next = opened(current, doorId);
+        } while (!STATE.compareAndSet(this, current, next));
 
-            Door door = getDoor(doorId);
-            if (DoorStatus.OPEN == door.getStatus()) {
-                throw new IllegalTransitionException(this.id, doorId, door.getStatus(), DoorStatus.OPEN);
-            }
+        changed(current, next);
+    }
 
-            door.setStatus(DoorStatus.OPEN);
+    public long play(List<DoorTransition> transitions) throws IllegalTransitionException, DoorDoesNotExistException {
+        long current;
+        long next;
+        do {
+            current = this.state;
+            next = current;
 
-            if (DoorContent.JUERGEN == door.getContent()) {
-                this.status = GameStatus.WON;
-            } else {
-                this.status = GameStatus.LOST;
+            for (DoorTransition transition : transitions) {
+                if (DoorStatus.SELECTED == transition.getStatus()) {
+                    next = selected(next, transition.getDoorId());
+                } else if (DoorStatus.OPEN == transition.getStatus()) {
+                    next = opened(next, transition.getDoorId());
+                } else {
+                    throw new IllegalTransitionException(this.id, transition.getDoorId(), transition.getStatus());
+                }
             }
+        } while (!STATE.compareAndSet(this, current, next));
+
+        if (next != current) {
+            changed(current, next);
         }
+
+        return next;
     }
 
     public Long getId() {
@@ -85,29 +299,347 @@ public final class Game implements Identifiable<Long> {
     }
 
     public Door getDoor(Long doorId) throws DoorDoesNotExistException {
-        if (this.doors.containsKey(doorId)) {
-            return this.doors.get(doorId);
-        }
-
-        throw new DoorDoesNotExistException(this.id, doorId);
+        return door(requireIndexOf(doorId));
     }
 
     public Set<Door> getDoors() {
-        return new HashSet<Door>(this.doors.values());
+        return new DoorSet();
+    }
+
+    // The doors from the fromIndex-th up to, but not including, the toIndex-th in door id order
+    public List<Door> getDoors(int fromIndex, int toIndex) {
+        List<Door> doors = new ArrayList<Door>(Math.max(0, toIndex - fromIndex));
+        for (int i = Math.max(0, fromIndex); i < Math.min(toIndex, this.doorCount); i++) {
+            doors.add(door(i));
+        }
+        return doors;
+    }
+
+    public int getDoorCount() {
+        return this.doorCount;
     }
 
     public GameStatus getStatus() {
-        synchronized (this.monitor) {
-            return this.status;
+        return status(this.state);
+    }
+
+    public long getState() {
+        return this.state;
+    }
+
+    public long getLastModified() {
+        return this.lastModified;
+    }
+
+    // A game with the same doors, frozen at the given state, that nothing listens to
+    public Game snapshot(long state) {
+        if (this.doors == null) {
+            return new Game(this.id, this.doorCount, this.winner, this.hintDoors, this.hostChoice, state, null);
+        }
+        return new Game(this.id, getDoors(), state);
+    }
+
+    // Derived from the state, which already holds every door a transition touched, and the transition times.  Timestamps are
+    // unknown for transitions made before a restored game was constructed.
+    public List<GameEvent> getHistory() {
+        return getHistory(0, Integer.MAX_VALUE);
+    }
+
+    // The events from the fromIndex-th up to, but not including, the toIndex-th, each computed from its index so that a page
+    // costs only the events on it
+    public List<GameEvent> getHistory(int fromIndex, int toIndex) {
+        long state = this.state;
+        long transitionTimes = this.transitionTimes;
+
+        int last = Math.min(toIndex, historySize(state));
+        List<GameEvent> history = new ArrayList<GameEvent>(Math.max(0, last - fromIndex));
+        for (int i = Math.max(0, fromIndex); i < last; i++) {
+            history.add(historyEvent(state, transitionTimes, i));
         }
+        return history;
+    }
+
+    public int getHistorySize() {
+        return historySize(this.state);
     }
 
-    private void openHintDoor() {
-        for (Door door : getDoors()) {
-            if (DoorStatus.CLOSED == door.getStatus() && DoorContent.SMALL_FURRY_ANIMAL == door.peekContent()) {
-                door.setStatus(DoorStatus.OPEN);
-                break;
+    // The status of a game in the given state, without a game to hold it
+    public static GameStatus statusOf(long state) {
+        return status(state);
+    }
+
+    // The id, status and visible content of the index-th door in door id order, with the game in the given state, for writers
+    // that would otherwise take a snapshot just to read them
+    public long getDoorId(int index) {
+        return this.doors != null ? this.doors[index].getId() : this.firstDoorId + index;
+    }
+
+    public DoorStatus getDoorStatus(long state, int index) {
+        return doorStatus(state, index);
+    }
+
+    public DoorContent getDoorContent(long state, int index) {
+        return doorStatus(state, index) == DoorStatus.OPEN ? content(index) : DoorContent.UNKNOWN;
+    }
+
+    DoorStatus getDoorStatus(int index) {
+        return doorStatus(this.state, index);
+    }
+
+    private long selected(long state, Long doorId) throws IllegalTransitionException, DoorDoesNotExistException {
+        GameStatus status = status(state);
+        if (status != GameStatus.AWAITING_INITIAL_SELECTION) {
+            throw new IllegalTransitionException(this.id, status, GameStatus.AWAITING_FINAL_SELECTION);
+        }
+
+        int selected = requireIndexOf(doorId);
+        return transition(state, GameStatus.AWAITING_FINAL_SELECTION) | ((long) selected << SELECTED_SHIFT)
+            | ((long) hintRotation(selected) << HINT_SHIFT);
+    }
+
+    private long opened(long state, Long doorId) throws IllegalTransitionException, DoorDoesNotExistException {
+        GameStatus status = status(state);
+        if (status != GameStatus.AWAITING_FINAL_SELECTION) {
+            throw new IllegalTransitionException(this.id, status, GameStatus.WON);
+        }
+
+        int opened = requireIndexOf(doorId);
+        DoorStatus doorStatus = doorStatus(state, opened);
+        if (DoorStatus.OPEN == doorStatus) {
+            throw new IllegalTransitionException(this.id, doorId, doorStatus, DoorStatus.OPEN);
+        }
+
+        GameStatus outcome = DoorContent.JUERGEN == content(opened) ? GameStatus.WON : GameStatus.LOST;
+        return transition(state, outcome) | ((long) opened << FINAL_SHIFT);
+    }
+
+    private void changed(long previous, long next) {
+        long now = System.currentTimeMillis();
+        recordTransitionTimes(previous, next, now);
+        this.lastModified = now;
+        fireGameChanged(previous, next);
+
+        // Only one transition can leave an unfinished state for a finished one, so each game completes once
+        if (this.completionListener != null && !isFinished(previous) && isFinished(next)) {
+            this.completionListener.gameCompleted(this, index(next, FINAL_SHIFT) != index(next, SELECTED_SHIFT),
+                GameStatus.WON == status(next));
+        }
+    }
+
+    private void recordTransitionTimes(long previous, long next, long now) {
+        long time = Math.min(now - this.constructed + 1, TIME_MASK);
+
+        long current;
+        long recorded;
+        do {
+            current = this.transitionTimes;
+            recorded = current;
+            for (int version = version(previous) + 1; version <= Math.min(version(next), RECORDED_TRANSITIONS); version++) {
+                recorded |= time << (TIME_BITS * (version - 1));
             }
+        } while (!TRANSITION_TIMES.compareAndSet(this, current, recorded));
+    }
+
+    private long transitionTime(long transitionTimes, int version) {
+        long time = (transitionTimes >>> (TIME_BITS * (version - 1))) & TIME_MASK;
+        return time == 0 ? GameEvent.UNKNOWN_TIMESTAMP : this.constructed + time - 1;
+    }
+
+    // The change has already been applied, so a listener that fails must neither keep the others from hearing of it nor fail
+    // the move
+    private void fireGameChanged(long previous, long next) {
+        for (GameListener listener : this.listeners) {
+            try {
+                listener.gameChanged(this, previous, next);
+            } catch (RuntimeException e) {
+                LOGGER.error(String.format("Game listener failed for game '%d'", this.id), e);
+            }
+        }
+    }
+
+    private int requireIndexOf(Long doorId) throws DoorDoesNotExistException {
+        int index = indexOf(doorId);
+        if (index < 0) {
+            throw new DoorDoesNotExistException(this.id, doorId);
+        }
+        return index;
+    }
+
+    private Door door(int index) {
+        if (this.doors != null) {
+            return this.doors[index];
+        }
+        return new Door(doorId(index), content(index), this, index);
+    }
+
+    private Long doorId(int index) {
+        return this.doors != null ? this.doors[index].getId() : Long.valueOf(this.firstDoorId + index);
+    }
+
+    private DoorContent content(int index) {
+        if (this.doors != null) {
+            return this.doors[index].peekContent();
+        }
+        return index == this.winner ? DoorContent.JUERGEN : DoorContent.SMALL_FURRY_ANIMAL;
+    }
+
+    private int indexOf(Long doorId) {
+        if (this.contiguousDoorIds) {
+            long index = doorId - this.firstDoorId;
+            return index >= 0 && index < this.doorCount ? (int) index : -1;
+        }
+
+        int low = 0;
+        int high = this.doors.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = this.doors[middle].getId().compareTo(doorId);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // The doors that were not selected are ranked in door id order and the host leaves a window of them closed, wrapping around
+    // from the last to the first, and opens the hintDoors others.  Where the window starts is the only choice the host makes, so
+    // it is all the state has to keep for any door's status to be known without looking at the others.  When the player selected
+    // a goat, the window starts so that the winner falls at a random place within it.  Every window holding a door is then as
+    // likely as every other to be left closed if that door is the winner, so the doors left closed say nothing about which of
+    // them it is.
+    private int hintRotation(int selected) {
+        int others = this.doorCount - 1;
+        if (this.hintDoors == 0 || others == 0) {
+            return 0;
+        }
+
+        if (this.winner == selected || this.winner == NO_DOOR) {
+            return this.hostChoice % others;
+        }
+
+        int closed = others - this.hintDoors;
+        return (rank(selected, this.winner) - (this.hostChoice % closed) + others) % others;
+    }
+
+    // The initial selection, its hint doors and the final selection each add their events in a fixed order
+    private int historySize(long state) {
+        int version = version(state);
+        return 1 + (version >= 1 ? this.hintDoors + 2 : 0) + (version >= 2 ? 2 : 0);
+    }
+
+    private GameEvent historyEvent(long state, long transitionTimes, int i) {
+        if (i == 0) {
+            return GameEvent.game(GameStatus.AWAITING_INITIAL_SELECTION, this.restored ? GameEvent.UNKNOWN_TIMESTAMP : this.constructed);
+        }
+
+        if (i < this.hintDoors + 3) {
+            long timestamp = transitionTime(transitionTimes, 1);
+            int selected = index(state, SELECTED_SHIFT);
+            if (i == 1) {
+                return GameEvent.door(doorId(selected), DoorStatus.SELECTED, timestamp);
+            }
+            if (i < this.hintDoors + 2) {
+                return GameEvent.door(doorId(hintIndex(selected, index(state, HINT_SHIFT), i - 2)), DoorStatus.OPEN, timestamp);
+            }
+            return GameEvent.game(GameStatus.AWAITING_FINAL_SELECTION, timestamp);
+        }
+
+        long timestamp = transitionTime(transitionTimes, 2);
+        if (i == this.hintDoors + 3) {
+            return GameEvent.door(doorId(index(state, FINAL_SHIFT)), DoorStatus.OPEN, timestamp);
+        }
+        return GameEvent.game(status(state), timestamp);
+    }
+
+    // The hint-th opened door in door id order.  The opened ranks follow the closed window, so those that wrapped past the last
+    // rank come first.
+    private int hintIndex(int selected, int rotation, int hint) {
+        int others = this.doorCount - 1;
+        int start = (rotation + others - this.hintDoors) % others;
+        int wrapped = Math.max(0, start + this.hintDoors - others);
+        int rank = hint < wrapped ? hint : start + hint - wrapped;
+        return rank < selected ? rank : rank + 1;
+    }
+
+    private boolean isHint(int selected, int rotation, int index) {
+        if (this.hintDoors == 0 || index == selected) {
+            return false;
+        }
+
+        int others = this.doorCount - 1;
+        return (rank(selected, index) - rotation + others) % others >= others - this.hintDoors;
+    }
+
+    private static int rank(int selected, int index) {
+        return index > selected ? index - 1 : index;
+    }
+
+    private static long transition(long state, GameStatus status) {
+        return ((state & ~STATUS_MASK) + (1L << VERSION_SHIFT)) | status.ordinal();
+    }
+
+    private static int version(long state) {
+        return (int) ((state >>> VERSION_SHIFT) & VERSION_MASK);
+    }
+
+    private static boolean isFinished(long state) {
+        GameStatus status = status(state);
+        return GameStatus.WON == status || GameStatus.LOST == status;
+    }
+
+    private static GameStatus status(long state) {
+        return GAME_STATUSES[(int) (state & STATUS_MASK)];
+    }
+
+    private static int index(long state, int shift) {
+        return (int) ((state >>> shift) & INDEX_MASK);
+    }
+
+    private DoorStatus doorStatus(long state, int index) {
+        GameStatus status = status(state);
+        if (GameStatus.AWAITING_INITIAL_SELECTION == status) {
+            return DoorStatus.CLOSED;
+        }
+
+        int selected = index(state, SELECTED_SHIFT);
+        boolean opened = isHint(selected, index(state, HINT_SHIFT), index) || (GameStatus.AWAITING_FINAL_SELECTION != status && index == index(state, FINAL_SHIFT));
+        if (opened) {
+            return DoorStatus.OPEN;
+        }
+
+        return index == selected ? DoorStatus.SELECTED : DoorStatus.CLOSED;
+    }
+
+    private final class DoorSet extends AbstractSet<Door> {
+
+        public Iterator<Door> iterator() {
+            return new Iterator<Door>() {
+
+                private int index = 0;
+
+                public boolean hasNext() {
+                    return this.index < Game.this.doorCount;
+                }
+
+                public Door next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return door(this.index++);
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        public int size() {
+            return Game.this.doorCount;
         }
     }
 }
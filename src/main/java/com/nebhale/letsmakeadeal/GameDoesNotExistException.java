@@ -20,9 +20,14 @@ public final class GameDoesNotExistException extends Exception {
 
     private static final long serialVersionUID = 7996516744853733268L;
 
-    private static final String MESSAGE_FORMAT = "Game '%d' does not exist";
+    private final Long gameId;
 
     public GameDoesNotExistException(Long gameId) {
-        super(String.format(MESSAGE_FORMAT, gameId));
+        super(null, null, false, false);
+        this.gameId = gameId;
+    }
+
+    public String getMessage() {
+        return "Game '" + this.gameId + "' does not exist";
     }
 }
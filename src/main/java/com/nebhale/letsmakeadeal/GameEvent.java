@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal;
+
+public final class GameEvent {
+
+    public static final long UNKNOWN_TIMESTAMP = -1;
+
+    private final Long doorId;
+
+    private final GameStatus gameStatus;
+
+    private final DoorStatus doorStatus;
+
+    private final long timestamp;
+
+    private GameEvent(Long doorId, GameStatus gameStatus, DoorStatus doorStatus, long timestamp) {
+        this.doorId = doorId;
+        this.gameStatus = gameStatus;
+        this.doorStatus = doorStatus;
+        this.timestamp = timestamp;
+    }
+
+    static GameEvent game(GameStatus status, long timestamp) {
+        return new GameEvent(null, status, null, timestamp);
+    }
+
+    static GameEvent door(Long doorId, DoorStatus status, long timestamp) {
+        return new GameEvent(doorId, null, status, timestamp);
+    }
+
+    public boolean isDoorEvent() {
+        return this.doorId != null;
+    }
+
+    public Long getDoorId() {
+        return this.doorId;
+    }
+
+    public GameStatus getGameStatus() {
+        return this.gameStatus;
+    }
+
+    public DoorStatus getDoorStatus() {
+        return this.doorStatus;
+    }
+
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+}
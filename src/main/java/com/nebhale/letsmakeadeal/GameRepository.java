@@ -16,11 +16,21 @@
 
 package com.nebhale.letsmakeadeal;
 
+import java.util.List;
+import java.util.Map;
+
 public interface GameRepository {
 
     Game create();
 
+    List<Game> create(int count);
+
     Game retrieve(Long id) throws GameDoesNotExistException;
 
+    List<Game> retrieve(long[] ids);
+
     void remove(Long id) throws GameDoesNotExistException;
+
+    // Read from counts kept up to date as games change, so that monitoring never visits the games
+    Map<GameStatus, Integer> countByStatus();
 }
@@ -20,21 +20,44 @@ public final class IllegalTransitionException extends Exception {
 
     private static final long serialVersionUID = -8560018436016981574L;
 
-    private static final String DOOR_TRANSITION_FROM_TO_MESSAGE_FORMAT = "It is illegal to transition door '%d' in game '%d' from '%s' to '%s'";
+    private final Long gameId;
 
-    private static final String DOOR_TRANSITION_TO_MESSAGE_FORMAT = "It is illegal to transition door '%d' in game '%d' to '%s'";
+    private final Long doorId;
 
-    private static final String GAME_TRANSITION_MESSAGE_FORMAT = "It is illegal to transition game '%d' from '%s' to '%s'";
+    private final Enum<?> from;
+
+    private final Enum<?> to;
 
     public IllegalTransitionException(Long gameId, Long doorId, DoorStatus from, DoorStatus to) {
-        super(String.format(DOOR_TRANSITION_FROM_TO_MESSAGE_FORMAT, doorId, gameId, from, to));
+        this(gameId, doorId, (Enum<?>) from, to);
     }
 
     public IllegalTransitionException(Long gameId, Long doorId, DoorStatus to) {
-        super(String.format(DOOR_TRANSITION_TO_MESSAGE_FORMAT, doorId, gameId, to));
+        this(gameId, doorId, null, to);
     }
 
     public IllegalTransitionException(Long gameId, GameStatus from, GameStatus to) {
-        super(String.format(GAME_TRANSITION_MESSAGE_FORMAT, gameId, from, to));
+        this(gameId, null, from, to);
+    }
+
+    private IllegalTransitionException(Long gameId, Long doorId, Enum<?> from, Enum<?> to) {
+        super(null, null, false, false);
+        this.gameId = gameId;
+        this.doorId = doorId;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getMessage() {
+        StringBuilder message = new StringBuilder("It is illegal to transition ");
+        if (this.doorId == null) {
+            message.append("game '").append(this.gameId).append('\'');
+        } else {
+            message.append("door '").append(this.doorId).append("' in game '").append(this.gameId).append('\'');
+        }
+        if (this.from != null) {
+            message.append(" from '").append(this.from).append('\'');
+        }
+        return message.append(" to '").append(this.to).append('\'').toString();
     }
 }
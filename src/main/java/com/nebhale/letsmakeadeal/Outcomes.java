@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal;
+
+public final class Outcomes {
+
+    private final long switchedWins;
+
+    private final long switchedLosses;
+
+    private final long stayedWins;
+
+    private final long stayedLosses;
+
+    public Outcomes(long switchedWins, long switchedLosses, long stayedWins, long stayedLosses) {
+        this.switchedWins = switchedWins;
+        this.switchedLosses = switchedLosses;
+        this.stayedWins = stayedWins;
+        this.stayedLosses = stayedLosses;
+    }
+
+    public long getGames() {
+        return getSwitched() + getStayed();
+    }
+
+    public long getSwitched() {
+        return this.switchedWins + this.switchedLosses;
+    }
+
+    public long getSwitchedWins() {
+        return this.switchedWins;
+    }
+
+    public long getStayed() {
+        return this.stayedWins + this.stayedLosses;
+    }
+
+    public long getStayedWins() {
+        return this.stayedWins;
+    }
+
+    public double getSwitchRate() {
+        return rate(getSwitched(), getGames());
+    }
+
+    public double getSwitchedWinRate() {
+        return rate(this.switchedWins, getSwitched());
+    }
+
+    public double getStayedWinRate() {
+        return rate(this.stayedWins, getStayed());
+    }
+
+    private static double rate(long count, long total) {
+        return total == 0 ? 0 : (double) count / total;
+    }
+
+}
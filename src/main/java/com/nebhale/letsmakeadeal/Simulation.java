@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal;
+
+public final class Simulation {
+
+    private final PlayerStrategy strategy;
+
+    private final long seed;
+
+    private final WinRate switched;
+
+    private final WinRate stayed;
+
+    private final long duration;
+
+    public Simulation(PlayerStrategy strategy, long seed, WinRate switched, WinRate stayed, long duration) {
+        this.strategy = strategy;
+        this.seed = seed;
+        this.switched = switched;
+        this.stayed = stayed;
+        this.duration = duration;
+    }
+
+    public PlayerStrategy getStrategy() {
+        return this.strategy;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public long getGames() {
+        return this.switched.getGames() + this.stayed.getGames();
+    }
+
+    public WinRate getWinRate() {
+        return new WinRate(this.switched.getWins() + this.stayed.getWins(), getGames());
+    }
+
+    public WinRate getSwitched() {
+        return this.switched;
+    }
+
+    public WinRate getStayed() {
+        return this.stayed;
+    }
+
+    public long getDuration() {
+        return this.duration;
+    }
+
+    public double getGamesPerSecond() {
+        return this.duration == 0 ? 0 : getGames() * 1000.0 / this.duration;
+    }
+
+}
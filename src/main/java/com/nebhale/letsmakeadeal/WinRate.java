@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal;
+
+public final class WinRate {
+
+    // The 97.5th percentile of the standard normal distribution, for a 95% confidence interval
+    private static final double Z = 1.959963984540054;
+
+    private final long wins;
+
+    private final long games;
+
+    public WinRate(long wins, long games) {
+        this.wins = wins;
+        this.games = games;
+    }
+
+    public long getWins() {
+        return this.wins;
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    public double getRate() {
+        return this.games == 0 ? 0 : (double) this.wins / this.games;
+    }
+
+    public double getLowerBound() {
+        return this.games == 0 ? 0 : Math.max(0, wilsonCenter() - wilsonHalfWidth());
+    }
+
+    public double getUpperBound() {
+        return this.games == 0 ? 1 : Math.min(1, wilsonCenter() + wilsonHalfWidth());
+    }
+
+    // The Wilson score interval, which unlike the normal approximation stays within [0, 1] when the rate is near either end
+    private double wilsonCenter() {
+        return (getRate() + (Z * Z) / (2 * this.games)) / (1 + (Z * Z) / this.games);
+    }
+
+    private double wilsonHalfWidth() {
+        double rate = getRate();
+        return (Z / (1 + (Z * Z) / this.games)) * Math.sqrt((rate * (1 - rate) / this.games) + ((Z * Z) / (4.0 * this.games * this.games)));
+    }
+
+}
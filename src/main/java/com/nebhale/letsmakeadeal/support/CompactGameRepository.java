@@ -0,0 +1,279 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameListener;
+import com.nebhale.letsmakeadeal.GameRepository;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+@Component
+@Profile("compact")
+final class CompactGameRepository implements GameRepository {
+
+    // | winner: 16 bits | game state: Game.STATE_BITS bits |
+    private static final int WINNER_SHIFT = Game.STATE_BITS;
+
+    private static final long STATE_MASK = (1L << WINNER_SHIFT) - 1;
+
+    private static final int SEGMENT_BITS = 32 - Integer.numberOfLeadingZeros(Runtime.getRuntime().availableProcessors() * 16 - 1);
+
+    private static final int SEGMENT_INITIAL_CAPACITY = 1024;
+
+    private final GameFactory gameFactory;
+
+    private final LongLongMap[] segments = new LongLongMap[1 << SEGMENT_BITS];
+
+    private final ConcurrentMap<Long, ViewReference> views = new ConcurrentHashMap<Long, ViewReference>();
+
+    private final ReferenceQueue<Game> collectedViews = new ReferenceQueue<Game>();
+
+    // Counted from the packed entries rather than from views, of which a game may have several
+    private final StatusGauges statusGauges = new StatusGauges();
+
+    private final GameListener writeBack = new GameListener() {
+
+        public void gameChanged(Game game, long previous, long next) {
+            store(game.getId(), next);
+        }
+    };
+
+    @Autowired
+    CompactGameRepository(GameFactory gameFactory, @Value("${games.compact.off-heap}") boolean offHeap) {
+        this.gameFactory = gameFactory;
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = new LongLongMap(SEGMENT_INITIAL_CAPACITY, offHeap);
+        }
+    }
+
+    // The views of new games are handed back without being registered, so a game nobody retrieves costs only its packed entry.
+    // Moves made through such a view are still written back, but retrieving the game builds a view of its own.
+    public Game create() {
+        Long id = this.gameFactory.nextId();
+        int winner = this.gameFactory.nextWinner();
+        Game view = this.gameFactory.create(id, winner);
+
+        LongLongMap segment = segmentFor(id);
+        synchronized (segment) {
+            segment.put(id, ((long) winner << WINNER_SHIFT) | view.getState());
+        }
+        this.statusGauges.add(view.getStatus(), 1);
+
+        view.addListener(this.writeBack);
+        return view;
+    }
+
+    public List<Game> create(int count) {
+        long[] ids = this.gameFactory.nextIds(count);
+        int[] winners = new int[count];
+        List<Game> views = new ArrayList<Game>(count);
+        for (int i = 0; i < count; i++) {
+            winners[i] = this.gameFactory.nextWinner();
+            views.add(this.gameFactory.create(ids[i], winners[i]));
+        }
+
+        long[] bySegment = orderBySegment(ids);
+        int start = 0;
+        while (start < count) {
+            int segmentIndex = (int) (bySegment[start] >>> Integer.SIZE);
+            LongLongMap segment = this.segments[segmentIndex];
+            synchronized (segment) {
+                int end = start;
+                while (end < count && (int) (bySegment[end] >>> Integer.SIZE) == segmentIndex) {
+                    int i = (int) bySegment[end++];
+                    segment.put(ids[i], ((long) winners[i] << WINNER_SHIFT) | views.get(i).getState());
+                }
+                start = end;
+            }
+        }
+
+        for (Game view : views) {
+            view.addListener(this.writeBack);
+        }
+        this.statusGauges.add(GameStatus.AWAITING_INITIAL_SELECTION, count);
+        return views;
+    }
+
+    public Game retrieve(Long id) throws GameDoesNotExistException {
+        expungeCollectedViews();
+
+        Game view = existingView(id);
+        if (view != null) {
+            return view;
+        }
+
+        LongLongMap segment = segmentFor(id);
+        synchronized (segment) {
+            view = viewOf(segment, id);
+            if (view == null) {
+                throw new GameDoesNotExistException(id);
+            }
+
+            return view;
+        }
+    }
+
+    public List<Game> retrieve(long[] ids) {
+        expungeCollectedViews();
+
+        Game[] views = new Game[ids.length];
+
+        long[] bySegment = orderBySegment(ids);
+        int start = 0;
+        while (start < ids.length) {
+            int segmentIndex = (int) (bySegment[start] >>> Integer.SIZE);
+            LongLongMap segment = this.segments[segmentIndex];
+            synchronized (segment) {
+                int end = start;
+                while (end < ids.length && (int) (bySegment[end] >>> Integer.SIZE) == segmentIndex) {
+                    int i = (int) bySegment[end++];
+                    views[i] = viewOf(segment, ids[i]);
+                }
+                start = end;
+            }
+        }
+
+        List<Game> games = new ArrayList<Game>(ids.length);
+        for (Game view : views) {
+            if (view != null) {
+                games.add(view);
+            }
+        }
+        return games;
+    }
+
+    public void remove(Long id) throws GameDoesNotExistException {
+        LongLongMap segment = segmentFor(id);
+        synchronized (segment) {
+            long stored = segment.remove(id);
+            if (stored == LongLongMap.MISSING) {
+                throw new GameDoesNotExistException(id);
+            }
+
+            this.statusGauges.add(Game.statusOf(stored & STATE_MASK), -1);
+
+            this.views.remove(id);
+        }
+    }
+
+    public Map<GameStatus, Integer> countByStatus() {
+        return this.statusGauges.toMap();
+    }
+
+    int size() {
+        int size = 0;
+        for (LongLongMap segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    void dropViews() {
+        this.views.clear();
+    }
+
+    private Game existingView(Long id) {
+        ViewReference reference = this.views.get(id);
+        return reference == null ? null : reference.get();
+    }
+
+    // Must be called while holding the segment's monitor
+    private Game viewOf(LongLongMap segment, Long id) {
+        Game view = existingView(id);
+        if (view != null) {
+            return view;
+        }
+
+        long stored = segment.get(id);
+        if (stored == LongLongMap.MISSING) {
+            return null;
+        }
+
+        // Registered only here, where a caller asked for a game it may hold on to
+        view = this.gameFactory.restore(id, (int) (stored >>> WINNER_SHIFT), stored & STATE_MASK);
+        view.addListener(this.writeBack);
+        this.views.put(view.getId(), new ViewReference(view.getId(), view, this.collectedViews));
+        return view;
+    }
+
+    private void store(Long id, long state) {
+        LongLongMap segment = segmentFor(id);
+        synchronized (segment) {
+            long stored = segment.get(id);
+            if (stored != LongLongMap.MISSING && (stored & STATE_MASK) < state) {
+                segment.put(id, (stored & ~STATE_MASK) | state);
+                this.statusGauges.moved(Game.statusOf(stored & STATE_MASK), Game.statusOf(state));
+            }
+        }
+    }
+
+    private void expungeCollectedViews() {
+        Reference<? extends Game> reference;
+        while ((reference = this.collectedViews.poll()) != null) {
+            ViewReference view = (ViewReference) reference;
+            this.views.remove(view.id, view);
+        }
+    }
+
+    private LongLongMap segmentFor(Long id) {
+        return this.segments[segmentIndex(id)];
+    }
+
+    private static int segmentIndex(long id) {
+        return (int) ((id * 0xC2B2AE3D27D4EB4FL) >>> (Long.SIZE - SEGMENT_BITS));
+    }
+
+    // Orders the positions of ids by segment, each packed as (segment index << 32) | position, so that a batch locks each segment
+    // it touches once
+    private static long[] orderBySegment(long[] ids) {
+        long[] bySegment = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            bySegment[i] = ((long) segmentIndex(ids[i]) << Integer.SIZE) | i;
+        }
+        Arrays.sort(bySegment);
+        return bySegment;
+    }
+
+    private static final class ViewReference extends WeakReference<Game> {
+
+        private final Long id;
+
+        private ViewReference(Long id, Game view, ReferenceQueue<Game> queue) {
+            super(view, queue);
+            this.id = id;
+        }
+    }
+
+}
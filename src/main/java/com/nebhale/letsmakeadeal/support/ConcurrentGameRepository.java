@@ -0,0 +1,327 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameRepository;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+@Component
+@Profile({ "default", "concurrent" })
+@ManagedResource(objectName = "com.nebhale.letsmakeadeal:type=GameRepository,name=concurrent")
+final class ConcurrentGameRepository implements GameRepository {
+
+    private static final int CONCURRENCY_LEVEL = Runtime.getRuntime().availableProcessors() * 4;
+
+    private static final long ACCESS_RESOLUTION = 1000;
+
+    private static final int EVICTION_BATCH_SIZE = 10000;
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final GameFactory gameFactory;
+
+    private final ConcurrentMap<Long, Entry> games = new ConcurrentHashMap<Long, Entry>(16, 0.75f, CONCURRENCY_LEVEL);
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final StatusGauges statusGauges = new StatusGauges();
+
+    private final long idleTimeout;
+
+    private final long finishedTimeout;
+
+    private final int maxGames;
+
+    private final long evictionInterval;
+
+    private final AtomicLong idleEvictions = new AtomicLong();
+
+    private final AtomicLong finishedEvictions = new AtomicLong();
+
+    private final AtomicLong capacityEvictions = new AtomicLong();
+
+    private final Lock evictionLock = new ReentrantLock();
+
+    private Iterator<Entry> evictionCursor;
+
+    private volatile ScheduledExecutorService evictionExecutor;
+
+    @Autowired
+    ConcurrentGameRepository(GameFactory gameFactory, @Value("${games.idle-timeout}") long idleTimeout,
+        @Value("${games.finished-timeout}") long finishedTimeout, @Value("${games.max-games}") int maxGames,
+        @Value("${games.eviction-interval}") long evictionInterval) {
+        this.gameFactory = gameFactory;
+        this.idleTimeout = idleTimeout;
+        this.finishedTimeout = finishedTimeout;
+        this.maxGames = maxGames;
+        this.evictionInterval = evictionInterval;
+    }
+
+    public Game create() {
+        Game game = this.gameFactory.create();
+        this.statusGauges.track(game);
+        this.games.put(game.getId(), new Entry(game, System.currentTimeMillis()));
+
+        if (this.size.incrementAndGet() > this.maxGames && this.evictionLock.tryLock()) {
+            unlockEviction();
+        }
+
+        return game;
+    }
+
+    public List<Game> create(int count) {
+        List<Game> games = this.gameFactory.create(count);
+
+        long now = System.currentTimeMillis();
+        for (Game game : games) {
+            this.statusGauges.track(game);
+            this.games.put(game.getId(), new Entry(game, now));
+        }
+
+        if (this.size.addAndGet(count) > this.maxGames && this.evictionLock.tryLock()) {
+            unlockEviction();
+        }
+
+        return games;
+    }
+
+    public Game retrieve(Long id) throws GameDoesNotExistException {
+        Entry entry = this.games.get(id);
+        if (entry != null) {
+            entry.touch(System.currentTimeMillis());
+            return entry.game;
+        }
+
+        throw new GameDoesNotExistException(id);
+    }
+
+    public List<Game> retrieve(long[] ids) {
+        List<Game> games = new ArrayList<Game>(ids.length);
+
+        long now = System.currentTimeMillis();
+        for (long id : ids) {
+            Entry entry = this.games.get(id);
+            if (entry != null) {
+                entry.touch(now);
+                games.add(entry.game);
+            }
+        }
+
+        return games;
+    }
+
+    public void remove(Long id) throws GameDoesNotExistException {
+        Entry entry = this.games.remove(id);
+        if (entry == null) {
+            throw new GameDoesNotExistException(id);
+        }
+
+        this.statusGauges.untrack(entry.game);
+        this.size.decrementAndGet();
+    }
+
+    public Map<GameStatus, Integer> countByStatus() {
+        return this.statusGauges.toMap();
+    }
+
+    @ManagedAttribute(description = "The number of games currently held")
+    public int getSize() {
+        return this.size.get();
+    }
+
+    @ManagedAttribute(description = "The number of unfinished games evicted after being idle")
+    public long getIdleEvictions() {
+        return this.idleEvictions.get();
+    }
+
+    @ManagedAttribute(description = "The number of finished games evicted")
+    public long getFinishedEvictions() {
+        return this.finishedEvictions.get();
+    }
+
+    @ManagedAttribute(description = "The number of games evicted to stay within the maximum number of games")
+    public long getCapacityEvictions() {
+        return this.capacityEvictions.get();
+    }
+
+    @PostConstruct
+    void start() {
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "game-eviction");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        this.evictionExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                try {
+                    evict(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    ConcurrentGameRepository.this.logger.error("Game eviction failed", e);
+                }
+            }
+        }, this.evictionInterval, this.evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (this.evictionExecutor != null) {
+            this.evictionExecutor.shutdownNow();
+        }
+    }
+
+    void evict(long now) {
+        this.evictionLock.lock();
+        try {
+            for (int i = 0; i < EVICTION_BATCH_SIZE; i++) {
+                Entry entry = nextEntry();
+                if (entry == null) {
+                    break;
+                }
+
+                boolean finished = isFinished(entry.game);
+                if (finished && (now - entry.lastAccessed > this.finishedTimeout)) {
+                    evict(entry, this.finishedEvictions);
+                } else if (!finished && (now - entry.lastAccessed > this.idleTimeout)) {
+                    evict(entry, this.idleEvictions);
+                }
+            }
+        } finally {
+            unlockEviction();
+        }
+    }
+
+    // Creates that find the lock held leave their overflow to the holder, which evicts down to the maximum before it lets go.  A
+    // create that overflows between that and the unlock is caught by the check after it.
+    private void unlockEviction() {
+        for (;;) {
+            boolean drained = true;
+            while (drained && this.size.get() > this.maxGames) {
+                drained = evictLeastRecentlyUsed();
+            }
+            this.evictionLock.unlock();
+
+            if (!drained || this.size.get() <= this.maxGames || !this.evictionLock.tryLock()) {
+                return;
+            }
+        }
+    }
+
+    // Samples live games only, as the cursor may still return games evicted since it was created, and gives up once the cursor
+    // has run off the end twice without finding one
+    private boolean evictLeastRecentlyUsed() {
+        Entry candidate = null;
+        int sampled = 0;
+        int ends = 0;
+        while (sampled < EVICTION_SAMPLE_SIZE && ends < 2) {
+            Entry entry = nextEntry();
+            if (entry == null) {
+                ends++;
+            } else if (this.games.get(entry.game.getId()) == entry) {
+                sampled++;
+                if (candidate == null || entry.lastAccessed < candidate.lastAccessed) {
+                    candidate = entry;
+                }
+            }
+        }
+
+        return candidate != null && evict(candidate, this.capacityEvictions);
+    }
+
+    private boolean evict(Entry entry, AtomicLong counter) {
+        if (this.games.remove(entry.game.getId(), entry)) {
+            this.statusGauges.untrack(entry.game);
+            this.size.decrementAndGet();
+            counter.incrementAndGet();
+            return true;
+        }
+
+        return false;
+    }
+
+    private Entry nextEntry() {
+        if (this.evictionCursor == null) {
+            this.evictionCursor = this.games.values().iterator();
+        }
+
+        if (this.evictionCursor.hasNext()) {
+            return this.evictionCursor.next();
+        }
+
+        this.evictionCursor = null;
+        return null;
+    }
+
+    private static boolean isFinished(Game game) {
+        GameStatus status = game.getStatus();
+        return GameStatus.WON == status || GameStatus.LOST == status;
+    }
+
+    private static final class Entry {
+
+        private final Game game;
+
+        private volatile long lastAccessed;
+
+        private Entry(Game game, long lastAccessed) {
+            this.game = game;
+            this.lastAccessed = lastAccessed;
+        }
+
+        private void touch(long now) {
+            if (now - this.lastAccessed > ACCESS_RESOLUTION) {
+                this.lastAccessed = now;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.DoorDoesNotExistException;
+import com.nebhale.letsmakeadeal.DoorStatus;
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameSimulator;
+import com.nebhale.letsmakeadeal.GameStatus;
+import com.nebhale.letsmakeadeal.IllegalTransitionException;
+import com.nebhale.letsmakeadeal.PlayerStrategy;
+import com.nebhale.letsmakeadeal.Simulation;
+import com.nebhale.letsmakeadeal.WinRate;
+
+@Component
+final class ForkJoinGameSimulator implements GameSimulator {
+
+    private static final int SWITCHED_WON = 0;
+
+    private static final int SWITCHED_LOST = 1;
+
+    private static final int STAYED_WON = 2;
+
+    private static final int STAYED_LOST = 3;
+
+    // Large enough that forking costs little next to playing the games, small enough to keep every core busy to the end
+    private static final long GAMES_PER_TASK = 1 << 16;
+
+    // How many games are played between looks at whether the simulation has been cancelled
+    private static final int GAMES_PER_CANCELLATION_CHECK = 1 << 10;
+
+    private final ForkJoinPool pool = new ForkJoinPool();
+
+    private final int doorCount;
+
+    private final int hintDoors;
+
+    private final Long[] doorIds;
+
+    // Simulated games are dealt with the same doors and hints as the games people play, so that a simulation checks the house the
+    // service actually runs
+    @Autowired
+    ForkJoinGameSimulator(GameFactory gameFactory) {
+        this.doorCount = gameFactory.getDoorCount();
+        this.hintDoors = gameFactory.getHintDoors();
+
+        this.doorIds = new Long[this.doorCount];
+        for (int i = 0; i < this.doorCount; i++) {
+            this.doorIds[i] = Long.valueOf(i);
+        }
+    }
+
+    public Simulation simulate(long games, PlayerStrategy strategy, long seed, AtomicBoolean cancelled) throws CancellationException {
+        long start = System.currentTimeMillis();
+        long[] outcomes = this.pool.invoke(new Games(this, 0, games, strategy, new SplitMix64(seed), cancelled));
+        long duration = System.currentTimeMillis() - start;
+
+        return new Simulation(strategy, seed, new WinRate(outcomes[SWITCHED_WON], outcomes[SWITCHED_WON] + outcomes[SWITCHED_LOST]),
+            new WinRate(outcomes[STAYED_WON], outcomes[STAYED_WON] + outcomes[STAYED_LOST]), duration);
+    }
+
+    @PreDestroy
+    void stop() {
+        this.pool.shutdownNow();
+    }
+
+    // Games are played without a completion listener, so simulations are not counted with the games people play.  The host's
+    // choices come from the simulation's generator too, so they are as reproducible as the rest of the game.
+    private int play(PlayerStrategy strategy, SplitMix64 random) throws IllegalTransitionException, DoorDoesNotExistException {
+        Game game = new Game(0L, this.doorCount, random.nextInt(this.doorCount), this.hintDoors, random.nextInt(Integer.MAX_VALUE), null);
+
+        Long selected = this.doorIds[random.nextInt(this.doorCount)];
+        game.select(selected);
+
+        boolean switched = PlayerStrategy.SWITCH == strategy || (PlayerStrategy.RANDOM == strategy && random.nextLong() < 0);
+        game.open(switched ? closedDoor(game, random.nextInt(this.doorCount - 1 - this.hintDoors)) : selected);
+
+        boolean won = GameStatus.WON == game.getStatus();
+        return switched ? (won ? SWITCHED_WON : SWITCHED_LOST) : (won ? STAYED_WON : STAYED_LOST);
+    }
+
+    // The choice-th of the doors left closed, other than the one selected
+    private Long closedDoor(Game game, int choice) throws DoorDoesNotExistException {
+        int remaining = choice;
+        for (Long doorId : this.doorIds) {
+            if (DoorStatus.CLOSED == game.getDoor(doorId).getStatus() && remaining-- == 0) {
+                return doorId;
+            }
+        }
+        throw new IllegalStateException("Game has no closed door after the initial selection");
+    }
+
+    // Every task splits its generator before forking, so the outcomes depend only on the seed and never on which thread played
+    // which games
+    private static final class Games extends RecursiveTask<long[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ForkJoinGameSimulator simulator;
+
+        private final long start;
+
+        private final long end;
+
+        private final PlayerStrategy strategy;
+
+        private final SplitMix64 random;
+
+        private final AtomicBoolean cancelled;
+
+        private Games(ForkJoinGameSimulator simulator, long start, long end, PlayerStrategy strategy, SplitMix64 random,
+            AtomicBoolean cancelled) {
+            this.simulator = simulator;
+            this.start = start;
+            this.end = end;
+            this.strategy = strategy;
+            this.random = random;
+            this.cancelled = cancelled;
+        }
+
+        protected long[] compute() {
+            if (this.end - this.start > GAMES_PER_TASK) {
+                long middle = (this.start + this.end) >>> 1;
+                Games left = new Games(this.simulator, this.start, middle, this.strategy, this.random.split(), this.cancelled);
+                Games right = new Games(this.simulator, middle, this.end, this.strategy, this.random, this.cancelled);
+
+                left.fork();
+                long[] outcomes = right.compute();
+                long[] leftOutcomes = left.join();
+                for (int i = 0; i < outcomes.length; i++) {
+                    outcomes[i] += leftOutcomes[i];
+                }
+                return outcomes;
+            }
+
+            long[] outcomes = new long[STAYED_LOST + 1];
+            try {
+                for (long i = this.start; i < this.end; i++) {
+                    if ((i % GAMES_PER_CANCELLATION_CHECK) == 0 && this.cancelled.get()) {
+                        throw new CancellationException("Simulation cancelled");
+                    }
+                    outcomes[this.simulator.play(this.strategy, this.random)]++;
+                }
+            } catch (IllegalTransitionException e) {
+                throw new IllegalStateException(e);
+            } catch (DoorDoesNotExistException e) {
+                throw new IllegalStateException(e);
+            }
+            return outcomes;
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameCompletionListener;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+@Component
+final class GameFactory {
+
+    private final GameIdAllocator gameIdAllocator = new GameIdAllocator();
+
+    private final WinnerPlacement winnerPlacement;
+
+    private final GameCompletionListener completionListener;
+
+    private final int doorCount;
+
+    private final int hintDoors;
+
+    @Autowired
+    GameFactory(WinnerPlacement winnerPlacement, GameCompletionListener completionListener, @Value("${games.doors}") int doorCount,
+        @Value("${games.hint-doors}") int hintDoors) {
+        if (doorCount < 2 || doorCount > Game.MAX_DOORS) {
+            throw new IllegalArgumentException(String.format("'%d' is an illegal number of doors, must be between 2 and %d", doorCount,
+                Game.MAX_DOORS));
+        }
+
+        this.winnerPlacement = winnerPlacement;
+        this.completionListener = completionListener;
+        this.doorCount = doorCount;
+
+        // A negative count opens all but that many of the doors that were not selected
+        this.hintDoors = hintDoors < 0 ? doorCount - 1 + hintDoors : hintDoors;
+        if (this.hintDoors < 0 || this.hintDoors > doorCount - 2) {
+            throw new IllegalArgumentException(String.format("'%d' is an illegal number of hint doors for %d doors", hintDoors, doorCount));
+        }
+    }
+
+    Game create() {
+        return create(nextId(), nextWinner());
+    }
+
+    List<Game> create(int count) {
+        long[] ids = nextIds(count);
+
+        List<Game> games = new ArrayList<Game>(count);
+        for (long id : ids) {
+            games.add(create(id, nextWinner()));
+        }
+        return games;
+    }
+
+    Game create(Long id, int winner) {
+        return new Game(id, this.doorCount, winner, this.hintDoors, nextHostChoice(), this.completionListener);
+    }
+
+    // Stored games only record their winner, so they must be restored with the door configuration they were created with.  Once a
+    // door is selected the state records the host's choice, so only games still awaiting a selection need another.
+    Game restore(Long id, int winner, long state) {
+        int hostChoice = GameStatus.AWAITING_INITIAL_SELECTION == Game.statusOf(state) ? nextHostChoice() : 0;
+        return new Game(id, this.doorCount, winner, this.hintDoors, hostChoice, state, this.completionListener);
+    }
+
+    Long nextId() {
+        return this.gameIdAllocator.nextId();
+    }
+
+    long[] nextIds(int count) {
+        return this.gameIdAllocator.nextIds(count);
+    }
+
+    int getDoorCount() {
+        return this.doorCount;
+    }
+
+    int getHintDoors() {
+        return this.hintDoors;
+    }
+
+    int nextWinner() {
+        return this.winnerPlacement.place(this.doorCount);
+    }
+
+    // Drawn as the winner is, so that the doors the host opens are no easier to predict than the door it avoids
+    private int nextHostChoice() {
+        return this.winnerPlacement.place(Integer.MAX_VALUE);
+    }
+
+}
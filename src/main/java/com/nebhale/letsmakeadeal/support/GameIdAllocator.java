@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class GameIdAllocator {
+
+    static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final AtomicLong blocks = new AtomicLong();
+
+    private final int blockSize;
+
+    private final long[] keys = new long[4];
+
+    private final ThreadLocal<Block> block = new ThreadLocal<Block>() {
+
+        protected Block initialValue() {
+            return new Block();
+        }
+    };
+
+    GameIdAllocator() {
+        this(DEFAULT_BLOCK_SIZE, new SecureRandom());
+    }
+
+    GameIdAllocator(int blockSize, SecureRandom random) {
+        this.blockSize = blockSize;
+        for (int i = 0; i < this.keys.length; i++) {
+            this.keys[i] = random.nextLong();
+        }
+    }
+
+    long nextId() {
+        Block block = this.block.get();
+        if (block.next == block.limit) {
+            block.next = this.blocks.getAndIncrement() * this.blockSize;
+            block.limit = block.next + this.blockSize;
+        }
+
+        return permute(block.next++);
+    }
+
+    long[] nextIds(int count) {
+        long[] ids = new long[count];
+
+        Block block = this.block.get();
+        int i = 0;
+        while (i < count && block.next < block.limit) {
+            ids[i++] = permute(block.next++);
+        }
+
+        if (i < count) {
+            long blocks = ((count - i) + this.blockSize - 1) / this.blockSize;
+            block.next = this.blocks.getAndAdd(blocks) * this.blockSize;
+            block.limit = block.next + (blocks * this.blockSize);
+
+            while (i < count) {
+                ids[i++] = permute(block.next++);
+            }
+        }
+
+        return ids;
+    }
+
+    // Cycle-walks a keyed bijection of all longs until it lands back on a non-negative one, which makes it a bijection of
+    // the non-negative longs. Sequential values therefore map to unique ids that cannot be predicted without the keys.
+    private long permute(long value) {
+        long id = value;
+        do {
+            id = scramble(id);
+        } while (id < 0);
+        return id;
+    }
+
+    private long scramble(long value) {
+        long x = value;
+        for (long key : this.keys) {
+            x ^= key;
+            x *= 0xBF58476D1CE4E5B9L;
+            x ^= x >>> 31;
+        }
+        return x;
+    }
+
+    private static final class Block {
+
+        private long next;
+
+        private long limit;
+    }
+}
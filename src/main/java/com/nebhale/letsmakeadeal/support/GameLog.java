@@ -0,0 +1,543 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.nebhale.letsmakeadeal.Game;
+
+final class GameLog {
+
+    // | game id: 64 bits | type: 4 bits | winner: 12 bits | game state: Game.STATE_BITS bits |
+    // A record whose type is zero was never written, which is how the unused tail of a pre-sized segment is recognized.
+    static final int RECORD_SIZE = 16;
+
+    static final int CREATED = 1;
+
+    static final int TRANSITIONED = 2;
+
+    static final int REMOVED = 3;
+
+    private static final int WINNER_SHIFT = Game.STATE_BITS;
+
+    private static final int TYPE_SHIFT = 60;
+
+    private static final long STATE_MASK = (1L << WINNER_SHIFT) - 1;
+
+    private static final long WINNER_MASK = (1L << (TYPE_SHIFT - WINNER_SHIFT)) - 1;
+
+    private static final long SEALED = 1L << 40;
+
+    private static final String SEGMENT_FORMAT = "games-%016x.log";
+
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("games-([0-9a-f]{16})\\.log");
+
+    // | magic: 64 bits | record count: 64 bits | records... |
+    private static final long SNAPSHOT_MAGIC = 0x4C4D4144534E4150L;
+
+    private static final int SNAPSHOT_HEADER_SIZE = 16;
+
+    private static final String SNAPSHOT_FORMAT = "games-%016x.snapshot";
+
+    private static final Pattern SNAPSHOT_PATTERN = Pattern.compile("games-([0-9a-f]{16})\\.snapshot");
+
+    private static final String IN_PROGRESS_SUFFIX = ".in-progress";
+
+    private static final int SNAPSHOT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int SNAPSHOT_CHUNK_RECORDS = 1 << 20;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final Queue<Segment> sealedSegments = new ConcurrentLinkedQueue<Segment>();
+
+    private final Object monitor = new Object();
+
+    private final AtomicInteger segmentCount = new AtomicInteger();
+
+    private final AtomicLong lostRecords = new AtomicLong();
+
+    private volatile boolean failing;
+
+    private volatile Segment current;
+
+    GameLog(File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize - (segmentSize % RECORD_SIZE);
+    }
+
+    // Visits every game that was not removed, from as many threads as the replay uses.  Returns the number of games visited.
+    long replay(int threads, final Visitor visitor) throws IOException {
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IOException(String.format("Unable to create game log directory '%s'", this.directory));
+        }
+
+        for (File file : this.directory.listFiles()) {
+            if (file.getName().endsWith(IN_PROGRESS_SUFFIX)) {
+                Files.delete(file.toPath());
+            }
+        }
+
+        List<Long> snapshots = sequences(SNAPSHOT_PATTERN);
+        long snapshot = snapshots.isEmpty() ? -1 : snapshots.get(snapshots.size() - 1);
+        List<Long> sequences = new ArrayList<Long>();
+        for (Long sequence : sequences(SEGMENT_PATTERN)) {
+            if (sequence > snapshot) {
+                sequences.add(sequence);
+            }
+        }
+        deleteThrough(snapshot);
+
+        final List<ConcurrentMap<Long, Long>> partitions = new ArrayList<ConcurrentMap<Long, Long>>(threads);
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            partitions.add(new ConcurrentHashMap<Long, Long>());
+        }
+
+        // Every record carries a game's whole state and later states compare greater, so the snapshot and the segments written
+        // after it can be replayed in any order
+        List<Callable<Long>> replays = new ArrayList<Callable<Long>>();
+        if (snapshot >= 0) {
+            final File file = snapshotFile(snapshot);
+            long records = snapshotRecords(file);
+            for (long first = 0; first < records; first += SNAPSHOT_CHUNK_RECORDS) {
+                final long offset = SNAPSHOT_HEADER_SIZE + (first * RECORD_SIZE);
+                final long length = Math.min(SNAPSHOT_CHUNK_RECORDS, records - first) * RECORD_SIZE;
+                replays.add(new Callable<Long>() {
+
+                    public Long call() throws IOException {
+                        replay(file, offset, length, partitions);
+                        return 0L;
+                    }
+                });
+            }
+        }
+        for (final Long sequence : sequences) {
+            replays.add(new Callable<Long>() {
+
+                public Long call() throws IOException {
+                    File file = segmentFile(sequence);
+                    replay(file, 0, file.length(), partitions);
+                    return 0L;
+                }
+            });
+        }
+        invokeAll(threads, replays);
+
+        List<Callable<Long>> visits = new ArrayList<Callable<Long>>(partitions.size());
+        for (final ConcurrentMap<Long, Long> partition : partitions) {
+            visits.add(new Callable<Long>() {
+
+                public Long call() {
+                    long visited = 0;
+                    for (Map.Entry<Long, Long> entry : partition.entrySet()) {
+                        long word = entry.getValue();
+                        if (type(word) != REMOVED) {
+                            visitor.visit(entry.getKey(), (int) ((word >>> WINNER_SHIFT) & WINNER_MASK), word & STATE_MASK);
+                            visited++;
+                        }
+                    }
+                    return visited;
+                }
+            });
+        }
+        long visited = invokeAll(threads, visits);
+
+        synchronized (this.monitor) {
+            long next = Math.max(snapshot + 1, sequences.isEmpty() ? 0 : sequences.get(sequences.size() - 1) + 1);
+            this.segmentCount.set(sequences.size());
+            this.current = openSegment(next);
+        }
+
+        return visited;
+    }
+
+    void append(long id, int type, int winner, long state) {
+        long word = ((long) type << TYPE_SHIFT) | ((long) winner << WINNER_SHIFT) | state;
+
+        for (;;) {
+            Segment segment = this.current;
+            int position = segment.reserve();
+            if (position >= 0) {
+                segment.write(position, id, word);
+                return;
+            }
+
+            // Appends are made from game listeners, after the change has been applied, so a failure to open the next segment is
+            // counted rather than thrown.  Later appends try again to open it.
+            try {
+                roll(segment);
+            } catch (IOException e) {
+                this.lostRecords.incrementAndGet();
+                if (!this.failing) {
+                    this.failing = true;
+                    this.logger.error("Game log is unable to record changes", e);
+                }
+                return;
+            }
+        }
+    }
+
+    void sync() {
+        for (Iterator<Segment> i = this.sealedSegments.iterator(); i.hasNext();) {
+            Segment segment = i.next();
+            boolean complete = segment.isComplete();
+            segment.force();
+
+            if (complete) {
+                i.remove();
+                segment.close();
+            }
+        }
+
+        this.current.force();
+    }
+
+    // The snapshot's epoch is the segment sealed as it starts.  Every change that segment, or an earlier one, holds was applied
+    // before the snapshot reads the games, and every later change goes to a later segment that is replayed on top of it.
+    Snapshot snapshot() throws IOException {
+        return new Snapshot(roll(this.current));
+    }
+
+    void close() {
+        sync();
+        for (Segment segment : this.sealedSegments) {
+            segment.close();
+        }
+        this.current.close();
+    }
+
+    int getSegmentCount() {
+        return this.segmentCount.get();
+    }
+
+    long getLostRecords() {
+        return this.lostRecords.get();
+    }
+
+    boolean isFailing() {
+        return this.failing;
+    }
+
+    // The next segment is opened before the full one is sealed, so that a failure leaves the log as it was
+    private long roll(Segment full) throws IOException {
+        synchronized (this.monitor) {
+            if (this.current == full) {
+                Segment next;
+                try {
+                    next = openSegment(full.sequence + 1);
+                } catch (IOException e) {
+                    throw new IOException(String.format("Unable to open game log segment '%s'", segmentFile(full.sequence + 1)), e);
+                }
+
+                full.seal();
+                this.sealedSegments.add(full);
+                this.current = next;
+
+                if (this.failing) {
+                    this.failing = false;
+                    this.logger.info("Game log is recording changes again, after losing {}", this.lostRecords.get());
+                }
+            }
+
+            return full.sequence;
+        }
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        Segment segment = new Segment(sequence, segmentFile(sequence), this.segmentSize);
+        this.segmentCount.incrementAndGet();
+        return segment;
+    }
+
+    private List<Long> sequences(Pattern pattern) {
+        List<Long> sequences = new ArrayList<Long>();
+        for (String name : this.directory.list()) {
+            Matcher matcher = pattern.matcher(name);
+            if (matcher.matches()) {
+                sequences.add(Long.parseLong(matcher.group(1), 16));
+            }
+        }
+
+        Collections.sort(sequences);
+        return sequences;
+    }
+
+    // Deletes the segments a snapshot replaces, and any earlier snapshots
+    private void deleteThrough(long snapshot) throws IOException {
+        for (Long sequence : sequences(SEGMENT_PATTERN)) {
+            if (sequence <= snapshot) {
+                Files.delete(segmentFile(sequence).toPath());
+                this.segmentCount.decrementAndGet();
+            }
+        }
+
+        for (Long sequence : sequences(SNAPSHOT_PATTERN)) {
+            if (sequence < snapshot) {
+                Files.delete(snapshotFile(sequence).toPath());
+            }
+        }
+    }
+
+    private File segmentFile(long sequence) {
+        return new File(this.directory, String.format(SEGMENT_FORMAT, sequence));
+    }
+
+    private File snapshotFile(long sequence) {
+        return new File(this.directory, String.format(SNAPSHOT_FORMAT, sequence));
+    }
+
+    private static long snapshotRecords(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            long magic = randomAccessFile.readLong();
+            long records = randomAccessFile.readLong();
+
+            if (magic != SNAPSHOT_MAGIC || randomAccessFile.length() != SNAPSHOT_HEADER_SIZE + (records * RECORD_SIZE)) {
+                throw new IOException(String.format("'%s' is not a valid game snapshot", file));
+            }
+
+            return records;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static void replay(File file, long offset, long length, List<ConcurrentMap<Long, Long>> partitions) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, length);
+
+            int limit = buffer.limit() - (buffer.limit() % RECORD_SIZE);
+            for (int position = 0; position < limit; position += RECORD_SIZE) {
+                long word = buffer.getLong(position + 8);
+                if (type(word) != 0) {
+                    long id = buffer.getLong(position);
+                    merge(partitions.get((int) ((id & Long.MAX_VALUE) % partitions.size())), id, word);
+                }
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static long invokeAll(int threads, List<Callable<Long>> tasks) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+        try {
+            long total = 0;
+            for (Future<Long> future : executor.invokeAll(tasks)) {
+                total += future.get();
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while replaying the game log", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to replay the game log", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void merge(ConcurrentMap<Long, Long> words, Long id, Long word) {
+        for (;;) {
+            Long existing = words.putIfAbsent(id, word);
+            if (existing == null || !supersedes(word, existing)) {
+                return;
+            }
+
+            if (words.replace(id, existing, word)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean supersedes(long word, long existing) {
+        if (type(existing) == REMOVED) {
+            return false;
+        }
+
+        return type(word) == REMOVED || (word & STATE_MASK) > (existing & STATE_MASK);
+    }
+
+    private static int type(long word) {
+        return (int) (word >>> TYPE_SHIFT);
+    }
+
+    interface Visitor {
+
+        void visit(long id, int winner, long state);
+    }
+
+    final class Snapshot {
+
+        private final long sequence;
+
+        private final File file;
+
+        private final RandomAccessFile randomAccessFile;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_SIZE);
+
+        private long records;
+
+        private Snapshot(long sequence) throws IOException {
+            this.sequence = sequence;
+            this.file = new File(GameLog.this.directory, String.format(SNAPSHOT_FORMAT, sequence) + IN_PROGRESS_SUFFIX);
+            this.randomAccessFile = new RandomAccessFile(this.file, "rw");
+            this.randomAccessFile.getChannel().position(SNAPSHOT_HEADER_SIZE);
+        }
+
+        void append(long id, int winner, long state) throws IOException {
+            if (this.buffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+
+            this.buffer.putLong(id);
+            this.buffer.putLong(((long) CREATED << TYPE_SHIFT) | ((long) winner << WINNER_SHIFT) | state);
+            this.records++;
+        }
+
+        // Publishes the snapshot and deletes the segments it replaces.  Returns the size of the snapshot in bytes.
+        long commit() throws IOException {
+            flush();
+
+            FileChannel channel = this.randomAccessFile.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+            header.putLong(SNAPSHOT_MAGIC).putLong(this.records).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+
+            channel.force(true);
+            long size = channel.size();
+            this.randomAccessFile.close();
+
+            Files.move(this.file.toPath(), snapshotFile(this.sequence).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            deleteThrough(this.sequence);
+
+            return size;
+        }
+
+        void abort() throws IOException {
+            this.randomAccessFile.close();
+            Files.deleteIfExists(this.file.toPath());
+        }
+
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.randomAccessFile.getChannel().write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+    }
+
+    private static final class Segment {
+
+        private final long sequence;
+
+        private final RandomAccessFile file;
+
+        private final MappedByteBuffer buffer;
+
+        private final int limit;
+
+        private final AtomicLong reserved = new AtomicLong();
+
+        private final AtomicLong written = new AtomicLong();
+
+        private volatile long end = Long.MAX_VALUE;
+
+        private Segment(long sequence, File file, int size) throws IOException {
+            this.sequence = sequence;
+            this.file = new RandomAccessFile(file, "rw");
+            try {
+                this.buffer = this.file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                this.file.close();
+                throw e;
+            }
+            this.limit = size;
+        }
+
+        private int reserve() {
+            long position = this.reserved.getAndAdd(RECORD_SIZE);
+            return position < this.limit ? (int) position : -1;
+        }
+
+        private void write(int position, long id, long word) {
+            this.buffer.putLong(position, id);
+            this.buffer.putLong(position + 8, word);
+            this.written.addAndGet(RECORD_SIZE);
+        }
+
+        // Pushes the reservation counter past the limit, so that every record reserved from here on fails and the records that
+        // did succeed are known
+        private void seal() {
+            this.end = Math.min(this.reserved.getAndAdd(SEALED), this.limit);
+        }
+
+        private boolean isComplete() {
+            return this.written.get() >= this.end;
+        }
+
+        private void force() {
+            this.buffer.force();
+        }
+
+        private void close() {
+            try {
+                this.file.close();
+            } catch (IOException e) {
+                // The mapping stays valid until it is collected, so there is nothing left to release
+            }
+        }
+    }
+
+}
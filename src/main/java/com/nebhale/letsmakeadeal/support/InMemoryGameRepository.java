@@ -16,43 +16,62 @@
 
 package com.nebhale.letsmakeadeal.support;
 
-import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
-import com.nebhale.letsmakeadeal.Door;
-import com.nebhale.letsmakeadeal.DoorContent;
 import com.nebhale.letsmakeadeal.Game;
 import com.nebhale.letsmakeadeal.GameDoesNotExistException;
 import com.nebhale.letsmakeadeal.GameRepository;
+import com.nebhale.letsmakeadeal.GameStatus;
 
 @Component
+@Profile("synchronized")
 final class InMemoryGameRepository implements GameRepository {
 
-    private static final SecureRandom RANDOM = new SecureRandom();
+    private final GameFactory gameFactory;
 
     private final Map<Long, Game> games = new HashMap<Long, Game>();
 
-    private final AtomicLong idGenerator = new AtomicLong();
-
     private final Object monitor = new Object();
 
+    private final StatusGauges statusGauges = new StatusGauges();
+
+    @Autowired
+    InMemoryGameRepository(GameFactory gameFactory) {
+        this.gameFactory = gameFactory;
+    }
+
     public Game create() {
         synchronized (this.monitor) {
-            Long id = this.idGenerator.getAndIncrement();
-            Game game = new Game(id, createDoors());
-
-            this.games.put(id, game);
+            Game game = this.gameFactory.create();
+            this.statusGauges.track(game);
+            this.games.put(game.getId(), game);
 
             return game;
         }
     }
 
+    public List<Game> create(int count) {
+        List<Game> games = this.gameFactory.create(count);
+        for (Game game : games) {
+            this.statusGauges.track(game);
+        }
+
+        synchronized (this.monitor) {
+            for (Game game : games) {
+                this.games.put(game.getId(), game);
+            }
+        }
+
+        return games;
+    }
+
     public Game retrieve(Long id) throws GameDoesNotExistException {
         synchronized (this.monitor) {
             if (this.games.containsKey(id)) {
@@ -63,10 +82,25 @@ final class InMemoryGameRepository implements GameRepository {
         }
     }
 
+    public List<Game> retrieve(long[] ids) {
+        List<Game> games = new ArrayList<Game>(ids.length);
+
+        synchronized (this.monitor) {
+            for (long id : ids) {
+                Game game = this.games.get(id);
+                if (game != null) {
+                    games.add(game);
+                }
+            }
+        }
+
+        return games;
+    }
+
     public void remove(Long id) throws GameDoesNotExistException {
         synchronized (this.monitor) {
             if (this.games.containsKey(id)) {
-                this.games.remove(id);
+                this.statusGauges.untrack(this.games.remove(id));
             } else {
                 throw new GameDoesNotExistException(id);
             }
@@ -74,17 +108,9 @@ final class InMemoryGameRepository implements GameRepository {
 
     }
 
-    private Set<Door> createDoors() {
-        Set<Door> doors = new HashSet<Door>();
-
-        int winner = RANDOM.nextInt(3);
-        for (int i = 0; i < 3; i++) {
-            Long id = this.idGenerator.getAndIncrement();
-            DoorContent content = i == winner ? DoorContent.JUERGEN : DoorContent.SMALL_FURRY_ANIMAL;
-            doors.add(new Door(id, content));
-        }
-
-        return doors;
+    // Kept up to date as games change, so that counting never holds the monitor
+    public Map<GameStatus, Integer> countByStatus() {
+        return this.statusGauges.toMap();
     }
 
 }
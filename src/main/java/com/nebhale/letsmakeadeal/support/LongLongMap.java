@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+final class LongLongMap {
+
+    static final long MISSING = -1;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final boolean direct;
+
+    private LongBuffer slots;
+
+    private int capacity;
+
+    private int size;
+
+    LongLongMap(int initialCapacity, boolean direct) {
+        this.direct = direct;
+        allocate(Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1);
+    }
+
+    long get(long key) {
+        int mask = this.capacity - 1;
+        for (int slot = index(key, mask);; slot = (slot + 1) & mask) {
+            long candidate = this.slots.get(slot << 1);
+            if (candidate == key) {
+                return this.slots.get((slot << 1) + 1);
+            } else if (candidate == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    void put(long key, long value) {
+        if (this.size + 1 > this.capacity * LOAD_FACTOR) {
+            resize();
+        }
+
+        int mask = this.capacity - 1;
+        for (int slot = index(key, mask);; slot = (slot + 1) & mask) {
+            long candidate = this.slots.get(slot << 1);
+            if (candidate == key) {
+                this.slots.put((slot << 1) + 1, value);
+                return;
+            } else if (candidate == EMPTY) {
+                this.slots.put(slot << 1, key);
+                this.slots.put((slot << 1) + 1, value);
+                this.size++;
+                return;
+            }
+        }
+    }
+
+    long remove(long key) {
+        int mask = this.capacity - 1;
+        for (int slot = index(key, mask);; slot = (slot + 1) & mask) {
+            long candidate = this.slots.get(slot << 1);
+            if (candidate == key) {
+                long value = this.slots.get((slot << 1) + 1);
+                shiftBackFrom(slot, mask);
+                this.size--;
+                return value;
+            } else if (candidate == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    private void shiftBackFrom(int hole, int mask) {
+        int slot = hole;
+        for (;;) {
+            slot = (slot + 1) & mask;
+            long key = this.slots.get(slot << 1);
+            if (key == EMPTY) {
+                break;
+            }
+
+            int home = index(key, mask);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                this.slots.put(hole << 1, key);
+                this.slots.put((hole << 1) + 1, this.slots.get((slot << 1) + 1));
+                hole = slot;
+            }
+        }
+
+        this.slots.put(hole << 1, EMPTY);
+    }
+
+    private void resize() {
+        LongBuffer previous = this.slots;
+        int previousCapacity = this.capacity;
+
+        allocate(previousCapacity << 1);
+        this.size = 0;
+
+        for (int slot = 0; slot < previousCapacity; slot++) {
+            long key = previous.get(slot << 1);
+            if (key != EMPTY) {
+                put(key, previous.get((slot << 1) + 1));
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        int longs = capacity << 1;
+        this.slots = this.direct ? ByteBuffer.allocateDirect(longs * 8).order(ByteOrder.nativeOrder()).asLongBuffer() : LongBuffer.allocate(longs);
+        for (int i = 0; i < longs; i += 2) {
+            this.slots.put(i, EMPTY);
+        }
+        this.capacity = capacity;
+    }
+
+    private static int index(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameListener;
+import com.nebhale.letsmakeadeal.GameRepository;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+@Component
+@Profile("persistent")
+@ManagedResource(objectName = "com.nebhale.letsmakeadeal:type=GameRepository,name=persistent")
+final class PersistentGameRepository implements GameRepository {
+
+    private static final int CONCURRENCY_LEVEL = Runtime.getRuntime().availableProcessors() * 4;
+
+    private static final int REPLAY_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final long ACCESS_RESOLUTION = 1000;
+
+    private static final int EVICTION_BATCH_SIZE = 10000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final GameFactory gameFactory;
+
+    private final GameLog gameLog;
+
+    private final ConcurrentMap<Long, Entry> games = new ConcurrentHashMap<Long, Entry>(16, 0.75f, CONCURRENCY_LEVEL);
+
+    private final StatusGauges statusGauges = new StatusGauges();
+
+    private final long syncInterval;
+
+    private final long snapshotInterval;
+
+    private final long finishedTimeout;
+
+    private final long evictionInterval;
+
+    private final Object evictionMonitor = new Object();
+
+    private final AtomicLong finishedEvictions = new AtomicLong();
+
+    private final Object snapshotMonitor = new Object();
+
+    private final AtomicLong snapshots = new AtomicLong();
+
+    private volatile long lastSnapshotDuration;
+
+    private volatile long lastSnapshotSize;
+
+    private volatile long lastSnapshotGames;
+
+    private volatile long restoreDuration;
+
+    private volatile long restoredGames;
+
+    private Iterator<Entry> evictionCursor;
+
+    private volatile ScheduledExecutorService logExecutor;
+
+    @Autowired
+    PersistentGameRepository(GameFactory gameFactory, @Value("${games.persistent.directory}") File directory,
+        @Value("${games.persistent.segment-size}") int segmentSize, @Value("${games.persistent.sync-interval}") long syncInterval,
+        @Value("${games.persistent.snapshot-interval}") long snapshotInterval, @Value("${games.finished-timeout}") long finishedTimeout,
+        @Value("${games.eviction-interval}") long evictionInterval) {
+        this.gameFactory = gameFactory;
+        this.gameLog = new GameLog(directory, segmentSize);
+        this.syncInterval = syncInterval;
+        this.snapshotInterval = snapshotInterval;
+        this.finishedTimeout = finishedTimeout;
+        this.evictionInterval = evictionInterval;
+    }
+
+    public Game create() {
+        Long id = this.gameFactory.nextId();
+        return create(id, this.gameFactory.nextWinner());
+    }
+
+    public List<Game> create(int count) {
+        long[] ids = this.gameFactory.nextIds(count);
+
+        List<Game> games = new ArrayList<Game>(count);
+        for (long id : ids) {
+            games.add(create(id, this.gameFactory.nextWinner()));
+        }
+        return games;
+    }
+
+    public Game retrieve(Long id) throws GameDoesNotExistException {
+        Entry entry = this.games.get(id);
+        if (entry != null) {
+            entry.touch(System.currentTimeMillis());
+            return entry.game;
+        }
+
+        throw new GameDoesNotExistException(id);
+    }
+
+    public List<Game> retrieve(long[] ids) {
+        List<Game> games = new ArrayList<Game>(ids.length);
+
+        long now = System.currentTimeMillis();
+        for (long id : ids) {
+            Entry entry = this.games.get(id);
+            if (entry != null) {
+                entry.touch(now);
+                games.add(entry.game);
+            }
+        }
+
+        return games;
+    }
+
+    public void remove(Long id) throws GameDoesNotExistException {
+        Entry entry = this.games.remove(id);
+        if (entry == null) {
+            throw new GameDoesNotExistException(id);
+        }
+
+        entry.remove();
+    }
+
+    public Map<GameStatus, Integer> countByStatus() {
+        return this.statusGauges.toMap();
+    }
+
+    @ManagedAttribute(description = "The number of games currently held")
+    public int getSize() {
+        return this.games.size();
+    }
+
+    @ManagedAttribute(description = "The number of finished games evicted")
+    public long getFinishedEvictions() {
+        return this.finishedEvictions.get();
+    }
+
+    @ManagedAttribute(description = "The number of game log segments on disk")
+    public int getSegmentCount() {
+        return this.gameLog.getSegmentCount();
+    }
+
+    @ManagedAttribute(description = "Whether the game log is currently unable to open a segment, so that changes go unrecorded")
+    public boolean isLogFailing() {
+        return this.gameLog.isFailing();
+    }
+
+    @ManagedAttribute(description = "The number of changes that were applied but could not be recorded in the game log")
+    public long getLostRecords() {
+        return this.gameLog.getLostRecords();
+    }
+
+    @ManagedAttribute(description = "The number of snapshots written")
+    public long getSnapshots() {
+        return this.snapshots.get();
+    }
+
+    @ManagedAttribute(description = "How long, in milliseconds, the last snapshot took to write")
+    public long getLastSnapshotDuration() {
+        return this.lastSnapshotDuration;
+    }
+
+    @ManagedAttribute(description = "The size, in bytes, of the last snapshot")
+    public long getLastSnapshotSize() {
+        return this.lastSnapshotSize;
+    }
+
+    @ManagedAttribute(description = "The number of games in the last snapshot")
+    public long getLastSnapshotGames() {
+        return this.lastSnapshotGames;
+    }
+
+    @ManagedAttribute(description = "How long, in milliseconds, restoring the games from the snapshot and game log took at startup")
+    public long getRestoreDuration() {
+        return this.restoreDuration;
+    }
+
+    @ManagedAttribute(description = "The number of games restored from the snapshot and game log at startup")
+    public long getRestoredGames() {
+        return this.restoredGames;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        final long start = System.currentTimeMillis();
+        this.restoredGames = this.gameLog.replay(REPLAY_THREADS, new GameLog.Visitor() {
+
+            public void visit(long id, int winner, long state) {
+                Game game = PersistentGameRepository.this.gameFactory.restore(id, winner, state);
+                Entry entry = new Entry(game, winner, start);
+
+                PersistentGameRepository.this.statusGauges.track(game);
+                game.addListener(entry);
+                PersistentGameRepository.this.games.put(id, entry);
+            }
+        });
+        this.restoreDuration = System.currentTimeMillis() - start;
+        this.logger.info("Restored {} games in {} ms", this.restoredGames, this.restoreDuration);
+
+        // Separate threads, so that a long snapshot never holds up the group commit
+        this.logExecutor = Executors.newScheduledThreadPool(3, new ThreadFactory() {
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "game-log");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        this.logExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                try {
+                    PersistentGameRepository.this.gameLog.sync();
+                } catch (RuntimeException e) {
+                    PersistentGameRepository.this.logger.error("Game log sync failed", e);
+                }
+            }
+        }, this.syncInterval, this.syncInterval, TimeUnit.MILLISECONDS);
+
+        this.logExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                try {
+                    snapshot();
+                } catch (IOException e) {
+                    PersistentGameRepository.this.logger.error("Game snapshot failed", e);
+                } catch (RuntimeException e) {
+                    PersistentGameRepository.this.logger.error("Game snapshot failed", e);
+                }
+            }
+        }, this.snapshotInterval, this.snapshotInterval, TimeUnit.MILLISECONDS);
+
+        this.logExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                try {
+                    evict(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    PersistentGameRepository.this.logger.error("Game eviction failed", e);
+                }
+            }
+        }, this.evictionInterval, this.evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    // A snapshot on the way down means the next start restores from it rather than replaying the log
+    @PreDestroy
+    void stop() {
+        if (this.logExecutor != null) {
+            this.logExecutor.shutdownNow();
+        }
+
+        try {
+            snapshot();
+        } catch (IOException e) {
+            this.logger.error("Game snapshot failed", e);
+        }
+
+        this.gameLog.close();
+    }
+
+    // Writes one record per held game, which drops removed and evicted games from the store, while games continue to change.
+    // The snapshot then replaces every segment up to the one sealed as it started.
+    @ManagedOperation(description = "Writes a snapshot of the held games and deletes the part of the game log it replaces")
+    public void snapshot() throws IOException {
+        synchronized (this.snapshotMonitor) {
+            long start = System.currentTimeMillis();
+            long games = 0;
+
+            GameLog.Snapshot snapshot = this.gameLog.snapshot();
+            try {
+                for (Entry entry : this.games.values()) {
+                    snapshot.append(entry.game.getId(), entry.winner, entry.game.getState());
+                    games++;
+                }
+
+                this.lastSnapshotSize = snapshot.commit();
+            } catch (IOException e) {
+                snapshot.abort();
+                throw e;
+            }
+
+            this.lastSnapshotGames = games;
+            this.lastSnapshotDuration = System.currentTimeMillis() - start;
+            this.snapshots.incrementAndGet();
+        }
+    }
+
+    // Finished games are evicted, and their removal logged, once they have not been accessed for games.finished-timeout
+    // milliseconds.  Each pass examines at most EVICTION_BATCH_SIZE games, resuming where the last pass stopped.
+    void evict(long now) {
+        synchronized (this.evictionMonitor) {
+            for (int i = 0; i < EVICTION_BATCH_SIZE; i++) {
+                Entry entry = nextEntry();
+                if (entry == null) {
+                    break;
+                }
+
+                if (isFinished(entry.game) && (now - entry.lastAccessed > this.finishedTimeout)
+                    && this.games.remove(entry.game.getId(), entry)) {
+                    entry.remove();
+                    this.finishedEvictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private Entry nextEntry() {
+        if (this.evictionCursor == null) {
+            this.evictionCursor = this.games.values().iterator();
+        }
+
+        if (this.evictionCursor.hasNext()) {
+            return this.evictionCursor.next();
+        }
+
+        this.evictionCursor = null;
+        return null;
+    }
+
+    private Game create(long id, int winner) {
+        Game game = this.gameFactory.create(id, winner);
+        Entry entry = new Entry(game, winner, System.currentTimeMillis());
+
+        // Listening before the game can be retrieved means no transition goes unlogged; replay orders records by state, so a
+        // transition logged ahead of the creation is harmless
+        this.statusGauges.track(game);
+        game.addListener(entry);
+        this.games.put(id, entry);
+        this.gameLog.append(id, GameLog.CREATED, winner, game.getState());
+
+        return game;
+    }
+
+    private static boolean isFinished(Game game) {
+        GameStatus status = game.getStatus();
+        return GameStatus.WON == status || GameStatus.LOST == status;
+    }
+
+    private final class Entry implements GameListener {
+
+        private final Game game;
+
+        private final int winner;
+
+        private volatile long lastAccessed;
+
+        private boolean removed;
+
+        private Entry(Game game, int winner, long lastAccessed) {
+            this.game = game;
+            this.winner = winner;
+            this.lastAccessed = lastAccessed;
+        }
+
+        // A transition racing the removal must not be logged after it: once a snapshot deletes the segment holding the removal,
+        // a later transition record would bring the game back on restart
+        public synchronized void gameChanged(Game game, long previous, long next) {
+            if (!this.removed) {
+                PersistentGameRepository.this.gameLog.append(game.getId(), GameLog.TRANSITIONED, this.winner, next);
+            }
+        }
+
+        private synchronized void remove() {
+            this.removed = true;
+            this.game.removeListener(this);
+            PersistentGameRepository.this.statusGauges.untrack(this.game);
+            PersistentGameRepository.this.gameLog.append(this.game.getId(), GameLog.REMOVED, this.winner, this.game.getState());
+        }
+
+        private void touch(long now) {
+            if (now - this.lastAccessed > ACCESS_RESOLUTION) {
+                this.lastAccessed = now;
+            }
+        }
+    }
+
+}
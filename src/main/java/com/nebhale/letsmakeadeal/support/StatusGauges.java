@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nebhale.letsmakeadeal.support;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameListener;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+// The number of games a repository holds in each status, kept up to date as games are added, change and are dropped, so that
+// reading the counts never visits a game.  Listening to a game moves it between statuses as it changes.
+final class StatusGauges implements GameListener {
+
+    private static final GameStatus[] GAME_STATUSES = GameStatus.values();
+
+    // Each count is padded out to a 64 byte cache line, so that games changing status do not contend with games being created
+    private static final int LINE_LENGTH = 8;
+
+    private final AtomicLongArray counts = new AtomicLongArray(GAME_STATUSES.length * LINE_LENGTH);
+
+    public void gameChanged(Game game, long previous, long next) {
+        moved(Game.statusOf(previous), Game.statusOf(next));
+    }
+
+    // Must be called before the game is published, so that no change can fall between counting it and listening to it
+    void track(Game game) {
+        add(game.getStatus(), 1);
+        game.addListener(this);
+    }
+
+    // Stops listening before reading the status, so that a change is either heard or reflected in the status uncounted
+    void untrack(Game game) {
+        game.removeListener(this);
+        add(game.getStatus(), -1);
+    }
+
+    void moved(GameStatus from, GameStatus to) {
+        if (from != to) {
+            add(to, 1);
+            add(from, -1);
+        }
+    }
+
+    void add(GameStatus status, long delta) {
+        this.counts.getAndAdd(status.ordinal() * LINE_LENGTH, delta);
+    }
+
+    Map<GameStatus, Integer> toMap() {
+        Map<GameStatus, Integer> counts = new EnumMap<GameStatus, Integer>(GameStatus.class);
+        for (GameStatus status : GAME_STATUSES) {
+            counts.put(status, (int) this.counts.get(status.ordinal() * LINE_LENGTH));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameCompletionListener;
+import com.nebhale.letsmakeadeal.GameStatistics;
+import com.nebhale.letsmakeadeal.Outcomes;
+
+@Component
+final class StripedGameStatistics implements GameCompletionListener, GameStatistics {
+
+    private static final int SWITCHED_WON = 0;
+
+    private static final int SWITCHED_LOST = 1;
+
+    private static final int STAYED_WON = 2;
+
+    private static final int STAYED_LOST = 3;
+
+    // The four counters of a stripe are padded out to a 64 byte cache line, so that stripes never share one
+    private static final int STRIPE_LENGTH = 8;
+
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+
+    private final Window total = new Window(1, Long.MAX_VALUE);
+
+    private final Window lastMinute = new Window(60, 1000);
+
+    private final Window lastHour = new Window(60, 60 * 1000);
+
+    public void gameCompleted(Game game, boolean switched, boolean won) {
+        int counter = switched ? (won ? SWITCHED_WON : SWITCHED_LOST) : (won ? STAYED_WON : STAYED_LOST);
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        long now = System.currentTimeMillis();
+
+        this.total.increment(now, stripe, counter);
+        this.lastMinute.increment(now, stripe, counter);
+        this.lastHour.increment(now, stripe, counter);
+    }
+
+    public Outcomes getTotal() {
+        return this.total.sum(System.currentTimeMillis());
+    }
+
+    public Outcomes getLastMinute() {
+        return this.lastMinute.sum(System.currentTimeMillis());
+    }
+
+    public Outcomes getLastHour() {
+        return this.lastHour.sum(System.currentTimeMillis());
+    }
+
+    // A ring of buckets, each counting the completions of one bucketDuration long slot of time across all of the stripes.  The
+    // first completion in a new slot recycles the bucket of the slot a full ring before it, so a completion counted by another
+    // thread at that instant can be lost.  Reads cost the same however many games exist.
+    private static final class Window {
+
+        private final int bucketCount;
+
+        private final long bucketDuration;
+
+        private final AtomicLongArray slots;
+
+        private final AtomicLongArray counters;
+
+        private Window(int bucketCount, long bucketDuration) {
+            this.bucketCount = bucketCount;
+            this.bucketDuration = bucketDuration;
+            this.slots = new AtomicLongArray(bucketCount);
+            this.counters = new AtomicLongArray(bucketCount * STRIPES * STRIPE_LENGTH);
+        }
+
+        private void increment(long now, int stripe, int counter) {
+            long slot = now / this.bucketDuration;
+            int bucket = (int) (slot % this.bucketCount);
+
+            long current = this.slots.get(bucket);
+            if (current < slot && this.slots.compareAndSet(bucket, current, slot)) {
+                for (int i = offset(bucket, 0); i < offset(bucket + 1, 0); i++) {
+                    this.counters.set(i, 0);
+                }
+            }
+
+            this.counters.incrementAndGet(offset(bucket, stripe) + counter);
+        }
+
+        private Outcomes sum(long now) {
+            long slot = now / this.bucketDuration;
+
+            long[] sums = new long[STAYED_LOST + 1];
+            for (int bucket = 0; bucket < this.bucketCount; bucket++) {
+                if (slot - this.slots.get(bucket) < this.bucketCount) {
+                    for (int stripe = 0; stripe < STRIPES; stripe++) {
+                        for (int counter = 0; counter < sums.length; counter++) {
+                            sums[counter] += this.counters.get(offset(bucket, stripe) + counter);
+                        }
+                    }
+                }
+            }
+
+            return new Outcomes(sums[SWITCHED_WON], sums[SWITCHED_LOST], sums[STAYED_WON], sums[STAYED_LOST]);
+        }
+
+        private static int offset(int bucket, int stripe) {
+            return ((bucket * STRIPES) + stripe) * STRIPE_LENGTH;
+        }
+    }
+
+}
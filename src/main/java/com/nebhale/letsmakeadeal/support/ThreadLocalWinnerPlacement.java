@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import java.security.SecureRandom;
+
+final class ThreadLocalWinnerPlacement implements WinnerPlacement {
+
+    private static final SecureRandom SEEDS = new SecureRandom();
+
+    private final ThreadLocal<SplitMix64> generators = new ThreadLocal<SplitMix64>() {
+
+        protected SplitMix64 initialValue() {
+            return new SplitMix64(SEEDS.nextLong());
+        }
+    };
+
+    public int place(int doorCount) {
+        return this.generators.get().nextInt(doorCount);
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+final class WinnerPlacementFactoryBean implements FactoryBean<WinnerPlacement> {
+
+    private static final String SECURE = "secure";
+
+    private static final String SEEDED = "seeded";
+
+    private static final String THREAD_LOCAL = "thread-local";
+
+    private final WinnerPlacement winnerPlacement;
+
+    @Autowired
+    WinnerPlacementFactoryBean(@Value("${games.winner-placement}") String type, @Value("${games.winner-placement.seed}") long seed) {
+        if (SECURE.equals(type)) {
+            this.winnerPlacement = new SecureRandomWinnerPlacement();
+        } else if (SEEDED.equals(type)) {
+            this.winnerPlacement = new SeededWinnerPlacement(seed);
+        } else if (THREAD_LOCAL.equals(type)) {
+            this.winnerPlacement = new ThreadLocalWinnerPlacement();
+        } else {
+            throw new IllegalArgumentException(String.format("'%s' is an illegal value for 'games.winner-placement'", type));
+        }
+    }
+
+    public WinnerPlacement getObject() {
+        return this.winnerPlacement;
+    }
+
+    public Class<?> getObjectType() {
+        return WinnerPlacement.class;
+    }
+
+    public boolean isSingleton() {
+        return true;
+    }
+
+}
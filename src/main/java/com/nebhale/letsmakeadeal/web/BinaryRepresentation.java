@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.MediaType;
+
+import com.nebhale.letsmakeadeal.Game;
+
+// A fixed layout, big-endian encoding of a game and a page of its doors, for clients that have no use for links:
+//
+//   byte  version of the layout, currently 1
+//   byte  game status, as an ordinal of GameStatus
+//   long  game id
+//   int   number of doors in the game
+//   int   index of the first door written
+//   int   number of doors written, always 0 for a game
+//
+// and then, for each door written:
+//
+//   long  door id
+//   byte  door status, as an ordinal of DoorStatus
+//   byte  door content, as an ordinal of DoorContent
+//
+// Fields are written one at a time into the response, straight from the state the representation captured, without a snapshot
+// of the game, door objects, a resource or a serializer.  As the enums travel as ordinals, their values may only be added at
+// the end.
+final class BinaryRepresentation {
+
+    static final String MEDIA_TYPE_VALUE = "application/vnd.nebhale.lets-make-a-deal";
+
+    static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    static final int VERSION = 1;
+
+    private BinaryRepresentation() {
+    }
+
+    static void write(Representation representation, OutputStream out) throws IOException {
+        Game game = representation.getGame();
+        long state = representation.getState();
+
+        int firstDoor = representation.getFirstDoor();
+        int lastDoor = representation.getLastDoor();
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(VERSION);
+        data.writeByte(Game.statusOf(state).ordinal());
+        data.writeLong(game.getId());
+        data.writeInt(game.getDoorCount());
+        data.writeInt(firstDoor);
+        data.writeInt(lastDoor - firstDoor);
+
+        for (int index = firstDoor; index < lastDoor; index++) {
+            data.writeLong(game.getDoorId(index));
+            data.writeByte(game.getDoorStatus(state, index).ordinal());
+            data.writeByte(game.getDoorContent(state, index).ordinal());
+        }
+
+        data.flush();
+    }
+}
@@ -1,40 +0,0 @@
-/*
- * Copyright 2012 the original author or authors.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.nebhale.letsmakeadeal.web;
-
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-
-import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
-import org.springframework.stereotype.Component;
-
-import com.nebhale.letsmakeadeal.Game;
-
-@Component
-final class GameResourceAssembler extends ResourceAssemblerSupport<Game, GameResource> {
-
-    GameResourceAssembler() {
-        super(GamesController.class, GameResource.class);
-    }
-
-    public GameResource toResource(Game game) {
-        GameResource resource = createResource(game);
-        resource.status = game.getStatus();
-        resource.add(linkTo(GamesController.class).slash(game).slash("doors").withRel("doors"));
-        return resource;
-    }
-
-}
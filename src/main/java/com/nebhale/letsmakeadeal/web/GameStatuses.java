@@ -16,23 +16,27 @@
 
 package com.nebhale.letsmakeadeal.web;
 
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import java.util.List;
 
-import org.springframework.stereotype.Component;
-
-import com.nebhale.letsmakeadeal.Door;
 import com.nebhale.letsmakeadeal.Game;
 
-@Component
-final class DoorResourceAssembler {
+final class GameStatuses {
+
+    private final List<Game> games;
+
+    private final String gamesUri;
 
-    DoorResource toResource(Game game, Door door) {
-        DoorResource resource = new DoorResource();
-        resource.status = door.getStatus();
-        resource.content = door.getContent();
-        resource.add(linkTo(GamesController.class).slash(game).slash("doors").slash(door).withSelfRel());
+    GameStatuses(List<Game> games, String gamesUri) {
+        this.games = games;
+        this.gamesUri = gamesUri;
+    }
+
+    List<Game> getGames() {
+        return this.games;
+    }
 
-        return resource;
+    String getGamesUri() {
+        return this.gamesUri;
     }
 
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.io.IOException;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+
+@Component
+final class GameStatusesHttpMessageConverter extends AbstractHttpMessageConverter<GameStatuses> {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    GameStatusesHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    protected boolean supports(Class<?> clazz) {
+        return GameStatuses.class.isAssignableFrom(clazz);
+    }
+
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    protected GameStatuses readInternal(Class<? extends GameStatuses> clazz, HttpInputMessage inputMessage) throws IOException,
+        HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("Game statuses cannot be read");
+    }
+
+    protected void writeInternal(GameStatuses gameStatuses, HttpOutputMessage outputMessage) throws IOException,
+        HttpMessageNotWritableException {
+        String gamesUri = gameStatuses.getGamesUri();
+
+        JsonGenerator generator = this.jsonFactory.createJsonGenerator(outputMessage.getBody(), JsonEncoding.UTF8);
+        generator.writeStartArray();
+
+        for (Game game : gameStatuses.getGames()) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", game.getId());
+            generator.writeStringField("status", game.getStatus().name());
+
+            if (gamesUri != null) {
+                String gameUri = gamesUri + "/" + game.getId();
+
+                generator.writeArrayFieldStart("links");
+                writeLink(generator, "self", gameUri);
+                writeLink(generator, "doors", gameUri + "/doors");
+                writeLink(generator, "history", gameUri + "/history");
+                generator.writeEndArray();
+            }
+
+            generator.writeEndObject();
+        }
+
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private static void writeLink(JsonGenerator generator, String rel, String href) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("rel", rel);
+        generator.writeStringField("href", href);
+        generator.writeEndObject();
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameListener;
+
+@Component
+final class GameWatchers {
+
+    private final ConcurrentMap<Long, Watch> watches = new ConcurrentHashMap<Long, Watch>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    void watch(Game game, long state, GameListener watcher) {
+        for (;;) {
+            Watch watch = this.watches.get(game.getId());
+            if (watch == null) {
+                Watch candidate = new Watch(game);
+                watch = this.watches.putIfAbsent(game.getId(), candidate);
+                if (watch == null) {
+                    watch = candidate;
+                }
+            }
+
+            if (watch.add(state, watcher)) {
+                return;
+            }
+        }
+    }
+
+    void unwatch(Game game, GameListener watcher) {
+        Watch watch = this.watches.get(game.getId());
+        if (watch != null) {
+            watch.remove(watcher);
+        }
+    }
+
+    int size() {
+        return this.size.get();
+    }
+
+    private final class Watch implements GameListener {
+
+        private final Game game;
+
+        private List<GameListener> watchers = new ArrayList<GameListener>();
+
+        private boolean closed = false;
+
+        private Watch(Game game) {
+            this.game = game;
+        }
+
+        public void gameChanged(Game game, long previous, long next) {
+            List<GameListener> changed;
+            synchronized (this) {
+                changed = this.watchers;
+                this.watchers = new ArrayList<GameListener>();
+                GameWatchers.this.size.addAndGet(-changed.size());
+                close();
+            }
+
+            for (GameListener watcher : changed) {
+                watcher.gameChanged(game, previous, next);
+            }
+        }
+
+        private boolean add(long state, GameListener watcher) {
+            synchronized (this) {
+                if (this.closed) {
+                    return false;
+                }
+
+                if (this.watchers.isEmpty()) {
+                    this.game.addListener(this);
+                }
+
+                // Checked after registering so that a transition racing with this watch is always seen by one or the other
+                if (this.game.getState() == state) {
+                    this.watchers.add(watcher);
+                    GameWatchers.this.size.incrementAndGet();
+                    return true;
+                }
+
+                close();
+            }
+
+            watcher.gameChanged(this.game, state, this.game.getState());
+            return true;
+        }
+
+        private void remove(GameListener watcher) {
+            synchronized (this) {
+                if (this.watchers.remove(watcher)) {
+                    GameWatchers.this.size.decrementAndGet();
+                    close();
+                }
+            }
+        }
+
+        private void close() {
+            if (this.watchers.isEmpty() && !this.closed) {
+                this.closed = true;
+                this.game.removeListener(this);
+                GameWatchers.this.watches.remove(this.game.getId(), this);
+            }
+        }
+    }
+
+}
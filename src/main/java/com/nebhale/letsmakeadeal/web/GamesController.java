@@ -18,9 +18,16 @@ package com.nebhale.letsmakeadeal.web;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -29,13 +36,18 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import com.nebhale.letsmakeadeal.DoorDoesNotExistException;
 import com.nebhale.letsmakeadeal.DoorStatus;
+import com.nebhale.letsmakeadeal.DoorTransition;
 import com.nebhale.letsmakeadeal.Game;
 import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameListener;
 import com.nebhale.letsmakeadeal.GameRepository;
 import com.nebhale.letsmakeadeal.IllegalTransitionException;
 
@@ -45,84 +57,315 @@ final class GamesController {
 
     private static final String STATUS_KEY = "status";
 
+    private static final String DOOR_KEY = "door";
+
+    private static final String RETRY_AFTER = "1";
+
+    private static final String ETAG_FORMAT = "\"%x-%s\"";
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final List<MediaType> PRODUCIBLE_MEDIA_TYPES = Arrays.asList(MediaType.APPLICATION_JSON, MediaType.TEXT_XML,
+        BinaryRepresentation.MEDIA_TYPE);
+
     private final GameRepository gameRepository;
 
-    private final GameResourceAssembler gameResourceAssembler;
+    private final GameWatchers gameWatchers;
+
+    private final RequestExecutor requestExecutor;
+
+    private final HistoryResourceAssembler historyResourceAssembler;
 
-    private final DoorsResourceAssembler doorsResourceAssembler;
+    private final Metrics metrics;
+
+    private final long eventsTimeout;
+
+    private final int batchMaxCount;
 
     @Autowired
-    GamesController(GameRepository gameRepository, GameResourceAssembler gameResourceAssembler, DoorsResourceAssembler doorsResourceAssembler) {
-        this.gameRepository = gameRepository;
-        this.gameResourceAssembler = gameResourceAssembler;
-        this.doorsResourceAssembler = doorsResourceAssembler;
+    GamesController(GameRepository gameRepository, GameWatchers gameWatchers, RequestExecutor requestExecutor,
+        HistoryResourceAssembler historyResourceAssembler, Metrics metrics, @Value("${games.events.timeout}") long eventsTimeout,
+        @Value("${games.batch.max-count}") int batchMaxCount) {
+        this.gameRepository = new MeteredGameRepository(gameRepository, metrics);
+        this.gameWatchers = gameWatchers;
+        this.requestExecutor = requestExecutor;
+        this.historyResourceAssembler = historyResourceAssembler;
+        this.metrics = metrics;
+        this.eventsTimeout = eventsTimeout;
+        this.batchMaxCount = batchMaxCount;
     }
 
     @RequestMapping(method = RequestMethod.POST, value = "")
-    ResponseEntity<Void> createGame() {
-        Game game = this.gameRepository.create();
+    DeferredResult<ResponseEntity<Void>> createGame() {
+        final String gamesUri = getGamesUri();
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setLocation(linkTo(GamesController.class).slash(game.getId()).toUri());
+        return this.requestExecutor.submit(new Callable<ResponseEntity<Void>>() {
+
+            public ResponseEntity<Void> call() {
+                Game game = GamesController.this.gameRepository.create();
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setLocation(URI.create(gamesUri + "/" + game.getId()));
+
+                return new ResponseEntity<Void>(headers, HttpStatus.CREATED);
+            }
+        });
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "", params = "count", produces = MediaType.APPLICATION_JSON_VALUE)
+    DeferredResult<ResponseEntity<List<String>>> createGames(@RequestParam final int count) {
+        if (count < 1 || count > this.batchMaxCount) {
+            throw new IllegalArgumentException(String.format("'%d' is an illegal value for parameter 'count', must be between 1 and %d",
+                count, this.batchMaxCount));
+        }
+
+        final String gamesUri = getGamesUri();
 
-        return new ResponseEntity<Void>(headers, HttpStatus.CREATED);
+        return this.requestExecutor.submit(new Callable<ResponseEntity<List<String>>>() {
+
+            public ResponseEntity<List<String>> call() {
+                List<String> locations = new ArrayList<String>(count);
+                for (Game game : GamesController.this.gameRepository.create(count)) {
+                    locations.add(gamesUri + "/" + game.getId());
+                }
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+
+                return new ResponseEntity<List<String>>(locations, headers, HttpStatus.CREATED);
+            }
+        });
     }
 
-    @RequestMapping(method = RequestMethod.GET, value = "/{gameId}", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE })
-    ResponseEntity<GameResource> showGame(@PathVariable Long gameId) throws GameDoesNotExistException {
-        Game game = this.gameRepository.retrieve(gameId);
-        GameResource resource = this.gameResourceAssembler.toResource(game);
+    @RequestMapping(method = RequestMethod.GET, value = "", params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    DeferredResult<ResponseEntity<GameStatuses>> showGames(@RequestParam final long[] ids,
+        @RequestParam(value = "links", defaultValue = "false") boolean links) {
+        if (ids.length > this.batchMaxCount) {
+            throw new IllegalArgumentException(String.format("%d ids were requested, must be no more than %d", ids.length,
+                this.batchMaxCount));
+        }
+
+        final String gamesUri = links ? getGamesUri() : null;
+
+        return this.requestExecutor.submit(new Callable<ResponseEntity<GameStatuses>>() {
+
+            public ResponseEntity<GameStatuses> call() {
+                List<Game> games = GamesController.this.gameRepository.retrieve(ids);
 
-        return new ResponseEntity<GameResource>(resource, HttpStatus.OK);
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+
+                return new ResponseEntity<GameStatuses>(new GameStatuses(games, gamesUri), headers, HttpStatus.OK);
+            }
+        });
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/{gameId}", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE,
+        BinaryRepresentation.MEDIA_TYPE_VALUE })
+    DeferredResult<ResponseEntity<Representation>> showGame(@PathVariable final Long gameId,
+        @RequestHeader final HttpHeaders requestHeaders) {
+        final String gamesUri = getGamesUri();
+
+        return this.requestExecutor.submit(new Callable<ResponseEntity<Representation>>() {
+
+            public ResponseEntity<Representation> call() throws GameDoesNotExistException {
+                Game game = GamesController.this.gameRepository.retrieve(gameId);
+                return represent(Representation.Type.GAME, game, requestHeaders, gamesUri);
+            }
+        });
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/{gameId}/events", produces = { MediaType.APPLICATION_JSON_VALUE,
+        MediaType.TEXT_XML_VALUE, BinaryRepresentation.MEDIA_TYPE_VALUE })
+    DeferredResult<ResponseEntity<Representation>> watchGame(@PathVariable Long gameId, @RequestHeader HttpHeaders requestHeaders)
+        throws GameDoesNotExistException {
+        final Game game = this.gameRepository.retrieve(gameId);
+        final MediaType mediaType = negotiate(requestHeaders.getAccept());
+        final String gamesUri = getGamesUri();
+
+        long lastModified = game.getLastModified();
+        long state = game.getState();
+        HttpHeaders headers = getRepresentationHeaders(state, lastModified, mediaType);
+
+        final DeferredResult<ResponseEntity<Representation>> result = new DeferredResult<ResponseEntity<Representation>>(this.eventsTimeout,
+            new ResponseEntity<Representation>(headers, HttpStatus.NOT_MODIFIED));
+
+        if (!isNotModified(requestHeaders, headers.getETag(), -1)) {
+            result.setResult(represent(Representation.Type.GAME, game, state, headers, mediaType, gamesUri));
+            return result;
+        }
+
+        final GameListener watcher = new GameListener() {
+
+            public void gameChanged(Game game, long previous, long next) {
+                long lastModified = game.getLastModified();
+                long state = game.getState();
+                result.setResult(represent(Representation.Type.GAME, game, state, getRepresentationHeaders(state, lastModified, mediaType),
+                    mediaType, gamesUri));
+            }
+        };
+
+        result.onCompletion(new Runnable() {
+
+            public void run() {
+                GamesController.this.gameWatchers.unwatch(game, watcher);
+            }
+        });
+
+        this.gameWatchers.watch(game, state, watcher);
+        return result;
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/{gameId}/history", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE })
+    DeferredResult<ResponseEntity<HistoryResource>> showHistory(@PathVariable final Long gameId,
+        @RequestParam(value = "page", defaultValue = "0") final int page, @RequestParam(value = "size", defaultValue = "20") final int size) {
+        validatePage(page, size);
+
+        final String gamesUri = getGamesUri();
+
+        return this.requestExecutor.submit(new Callable<ResponseEntity<HistoryResource>>() {
+
+            public ResponseEntity<HistoryResource> call() throws GameDoesNotExistException {
+                Game game = GamesController.this.gameRepository.retrieve(gameId);
+                return new ResponseEntity<HistoryResource>(GamesController.this.historyResourceAssembler.toResource(
+                    gamesUri + "/" + game.getId(), game, page, size), HttpStatus.OK);
+            }
+        });
     }
 
     @RequestMapping(method = RequestMethod.DELETE, value = "/{gameId}")
-    ResponseEntity<Void> destroyGame(@PathVariable Long gameId) throws GameDoesNotExistException {
-        this.gameRepository.remove(gameId);
-        return new ResponseEntity<Void>(HttpStatus.OK);
+    DeferredResult<ResponseEntity<Void>> destroyGame(@PathVariable final Long gameId) {
+        return this.requestExecutor.submit(new Callable<ResponseEntity<Void>>() {
+
+            public ResponseEntity<Void> call() throws GameDoesNotExistException {
+                GamesController.this.gameRepository.remove(gameId);
+                return new ResponseEntity<Void>(HttpStatus.OK);
+            }
+        });
     }
 
-    @RequestMapping(method = RequestMethod.GET, value = "/{gameId}/doors", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE })
-    ResponseEntity<DoorsResource> showDoors(@PathVariable Long gameId) throws GameDoesNotExistException {
-        Game game = this.gameRepository.retrieve(gameId);
-        DoorsResource resource = this.doorsResourceAssembler.toResource(game);
+    @RequestMapping(method = RequestMethod.GET, value = "/{gameId}/doors", produces = { MediaType.APPLICATION_JSON_VALUE,
+        MediaType.TEXT_XML_VALUE, BinaryRepresentation.MEDIA_TYPE_VALUE })
+    DeferredResult<ResponseEntity<Representation>> showDoors(@PathVariable final Long gameId,
+        @RequestParam(value = "page", required = false) Integer page, @RequestParam(value = "size", required = false) Integer size,
+        @RequestHeader final HttpHeaders requestHeaders) {
+        // Every door, unless a page of them is asked for
+        final int doorsPage = page == null ? 0 : page;
+        final int doorsSize = page == null && size == null ? Representation.UNPAGED : (size == null ? DEFAULT_PAGE_SIZE : size);
+        if (doorsSize != Representation.UNPAGED) {
+            validatePage(doorsPage, doorsSize);
+        }
 
-        return new ResponseEntity<DoorsResource>(resource, HttpStatus.OK);
+        final String gamesUri = getGamesUri();
+
+        return this.requestExecutor.submit(new Callable<ResponseEntity<Representation>>() {
+
+            public ResponseEntity<Representation> call() throws GameDoesNotExistException {
+                Game game = GamesController.this.gameRepository.retrieve(gameId);
+                return represent(Representation.Type.DOORS, game, requestHeaders, gamesUri, doorsPage, doorsSize);
+            }
+        });
     }
 
     @RequestMapping(method = RequestMethod.POST, value = "/{gameId}/doors/{doorId}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {
-        MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE })
-    ResponseEntity<Void> modifyDoor(@PathVariable Long gameId, @PathVariable Long doorId, @RequestBody Map<String, String> body)
-        throws MissingKeyException, GameDoesNotExistException, IllegalTransitionException, DoorDoesNotExistException {
-        DoorStatus status = getStatus(body);
-        Game game = this.gameRepository.retrieve(gameId);
-
-        if (DoorStatus.SELECTED == status) {
-            game.select(doorId);
-        } else if (DoorStatus.OPEN == status) {
-            game.open(doorId);
-        } else {
-            throw new IllegalTransitionException(gameId, doorId, status);
-        }
+        MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE, BinaryRepresentation.MEDIA_TYPE_VALUE })
+    DeferredResult<ResponseEntity<Void>> modifyDoor(@PathVariable final Long gameId, @PathVariable final Long doorId,
+        @RequestBody Map<String, String> body) throws MissingKeyException {
+        final DoorStatus status = getStatus(body);
+
+        return this.requestExecutor.submit(new Callable<ResponseEntity<Void>>() {
+
+            public ResponseEntity<Void> call() throws GameDoesNotExistException, IllegalTransitionException, DoorDoesNotExistException {
+                Game game = GamesController.this.gameRepository.retrieve(gameId);
+
+                if (DoorStatus.SELECTED == status) {
+                    game.select(doorId);
+                } else if (DoorStatus.OPEN == status) {
+                    game.open(doorId);
+                } else {
+                    throw new IllegalTransitionException(gameId, doorId, status);
+                }
 
-        return new ResponseEntity<Void>(HttpStatus.OK);
+                return new ResponseEntity<Void>(HttpStatus.OK);
+            }
+        });
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/{gameId}/play", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {
+        MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE, BinaryRepresentation.MEDIA_TYPE_VALUE })
+    DeferredResult<ResponseEntity<Representation>> playGame(@PathVariable final Long gameId, @RequestBody List<Map<String, String>> body,
+        @RequestHeader HttpHeaders requestHeaders) throws MissingKeyException {
+        final List<DoorTransition> transitions = getTransitions(body);
+        final MediaType mediaType = negotiate(requestHeaders.getAccept());
+        final String gamesUri = getGamesUri();
+
+        return this.requestExecutor.submit(new Callable<ResponseEntity<Representation>>() {
+
+            public ResponseEntity<Representation> call() throws GameDoesNotExistException, IllegalTransitionException,
+                DoorDoesNotExistException {
+                Game game = GamesController.this.gameRepository.retrieve(gameId);
+                long state = game.play(transitions);
+
+                return represent(Representation.Type.GAME, game, state, getRepresentationHeaders(state, game.getLastModified(), mediaType),
+                    mediaType, gamesUri);
+            }
+        });
     }
 
     @ExceptionHandler({ GameDoesNotExistException.class, DoorDoesNotExistException.class })
     ResponseEntity<String> handleNotFounds(Exception e) {
+        this.metrics.countError(HttpStatus.NOT_FOUND);
         return new ResponseEntity<String>(e.getMessage(), HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler({ IllegalArgumentException.class, MissingKeyException.class })
     ResponseEntity<String> handleBadRequests(Exception e) {
+        this.metrics.countError(HttpStatus.BAD_REQUEST);
         return new ResponseEntity<String>(e.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(IllegalTransitionException.class)
     ResponseEntity<String> handleConflicts(Exception e) {
+        this.metrics.countError(HttpStatus.CONFLICT);
         return new ResponseEntity<String>(e.getMessage(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(RejectedExecutionException.class)
+    ResponseEntity<String> handleRejections(Exception e) {
+        this.metrics.countError(HttpStatus.SERVICE_UNAVAILABLE);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Retry-After", RETRY_AFTER);
+
+        return new ResponseEntity<String>(e.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private String getGamesUri() {
+        return linkTo(GamesController.class).toString();
+    }
+
+    private ResponseEntity<Representation> represent(Representation.Type type, Game game, HttpHeaders requestHeaders, String gamesUri) {
+        return represent(type, game, requestHeaders, gamesUri, 0, Representation.UNPAGED);
+    }
+
+    private ResponseEntity<Representation> represent(Representation.Type type, Game game, HttpHeaders requestHeaders, String gamesUri,
+        int page, int size) {
+        // Read before the state so that a Last-Modified is never later than the state it is sent with
+        long lastModified = game.getLastModified();
+        long state = game.getState();
+        MediaType mediaType = negotiate(requestHeaders.getAccept());
+
+        HttpHeaders headers = getRepresentationHeaders(state, lastModified, mediaType);
+        if (isNotModified(requestHeaders, headers.getETag(), headers.getLastModified())) {
+            return new ResponseEntity<Representation>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        headers.setContentType(mediaType);
+        return new ResponseEntity<Representation>(new Representation(type, game, state, gamesUri, page, size), headers, HttpStatus.OK);
+    }
+
     private DoorStatus getStatus(Map<String, String> body) throws MissingKeyException {
         if (body.containsKey(STATUS_KEY)) {
             String value = body.get(STATUS_KEY);
@@ -136,4 +379,86 @@ final class GamesController {
 
         throw new MissingKeyException(STATUS_KEY);
     }
+
+    private List<DoorTransition> getTransitions(List<Map<String, String>> body) throws MissingKeyException {
+        List<DoorTransition> transitions = new ArrayList<DoorTransition>(body.size());
+        for (Map<String, String> transition : body) {
+            transitions.add(new DoorTransition(getDoorId(transition), getStatus(transition)));
+        }
+        return transitions;
+    }
+
+    private Long getDoorId(Map<String, String> transition) throws MissingKeyException {
+        if (transition.containsKey(DOOR_KEY)) {
+            String value = transition.get(DOOR_KEY);
+
+            try {
+                return Long.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("'%s' is an illegal value for key '%s'", value, DOOR_KEY), e);
+            }
+        }
+
+        throw new MissingKeyException(DOOR_KEY);
+    }
+
+    private static void validatePage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException(String.format("'%d' is an illegal value for parameter 'page', must not be negative", page));
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format("'%d' is an illegal value for parameter 'size', must be between 1 and %d", size,
+                MAX_PAGE_SIZE));
+        }
+    }
+
+    private static ResponseEntity<Representation> represent(Representation.Type type, Game game, long state, HttpHeaders headers,
+        MediaType mediaType, String gamesUri) {
+        headers.setContentType(mediaType);
+        return new ResponseEntity<Representation>(new Representation(type, game, state, gamesUri), headers, HttpStatus.OK);
+    }
+
+    private static HttpHeaders getRepresentationHeaders(long state, long lastModified, MediaType mediaType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(String.format(ETAG_FORMAT, state, mediaType.getSubtype()));
+        headers.set("Vary", "Accept");
+
+        // Another change could still happen within the current second, so a date only validates once its second has passed
+        if (lastModified / 1000 < System.currentTimeMillis() / 1000) {
+            headers.setLastModified(lastModified);
+        }
+
+        return headers;
+    }
+
+    private static MediaType negotiate(List<MediaType> acceptableMediaTypes) {
+        List<MediaType> sorted = new ArrayList<MediaType>(acceptableMediaTypes);
+        MediaType.sortBySpecificityAndQuality(sorted);
+
+        for (MediaType acceptableMediaType : sorted) {
+            for (MediaType producibleMediaType : PRODUCIBLE_MEDIA_TYPES) {
+                if (acceptableMediaType.includes(producibleMediaType)) {
+                    return producibleMediaType;
+                }
+            }
+        }
+
+        return PRODUCIBLE_MEDIA_TYPES.get(0);
+    }
+
+    private static boolean isNotModified(HttpHeaders requestHeaders, String eTag, long lastModified) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            for (String candidate : ifNoneMatch) {
+                String tag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+                if ("*".equals(tag) || eTag.equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince = requestHeaders.getIfNotModifiedSince();
+        return ifModifiedSince >= 0 && lastModified >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
 }
@@ -16,17 +16,17 @@
 
 package com.nebhale.letsmakeadeal.web;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import org.springframework.hateoas.ResourceSupport;
 
-@XmlRootElement(name = "door")
-final class DoorsResource extends ResourceSupport {
+@XmlRootElement(name = "history")
+final class HistoryResource extends ResourceSupport {
 
-    @XmlElement(name = "door")
-    public volatile Set<DoorResource> doors = new HashSet<DoorResource>();
+    @XmlElement(name = "event")
+    public volatile List<HistoryEventResource> history = new ArrayList<HistoryEventResource>();
 }
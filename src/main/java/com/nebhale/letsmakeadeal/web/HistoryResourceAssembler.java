@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import org.springframework.hateoas.Link;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameEvent;
+
+@Component
+final class HistoryResourceAssembler {
+
+    private static final String PAGE_FORMAT = "%s/history?page=%d&size=%d";
+
+    // The links are built from the games URI rather than the current request, so that a history can be assembled off the
+    // container thread
+    HistoryResource toResource(String gameUri, Game game, int page, int size) {
+        HistoryResource resource = new HistoryResource();
+
+        // Only the events on the page are built, however long the history is
+        int historySize = game.getHistorySize();
+        int first = (int) Math.min((long) page * size, historySize);
+        int last = Math.min(first + size, historySize);
+        for (GameEvent event : game.getHistory(first, last)) {
+            resource.history.add(toResource(gameUri, event));
+        }
+
+        resource.add(new Link(String.format(PAGE_FORMAT, gameUri, page, size), Link.REL_SELF));
+        if (page > 0) {
+            resource.add(new Link(String.format(PAGE_FORMAT, gameUri, page - 1, size), Link.REL_PREVIOUS));
+        }
+        if (last < historySize) {
+            resource.add(new Link(String.format(PAGE_FORMAT, gameUri, page + 1, size), Link.REL_NEXT));
+        }
+
+        return resource;
+    }
+
+    private HistoryEventResource toResource(String gameUri, GameEvent event) {
+        HistoryEventResource resource = new HistoryEventResource();
+
+        if (event.isDoorEvent()) {
+            resource.door = gameUri + "/doors/" + event.getDoorId();
+            resource.status = event.getDoorStatus().name();
+        } else {
+            resource.game = gameUri;
+            resource.status = event.getGameStatus().name();
+        }
+
+        if (event.getTimestamp() != GameEvent.UNKNOWN_TIMESTAMP) {
+            resource.timestamp = event.getTimestamp();
+        }
+
+        return resource;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.math.BigDecimal;
+
+// Counts latencies into buckets whose upper bounds double from 1 microsecond to about 17 seconds, with a last bucket for
+// anything longer.  Finding a bucket is a leading zero count rather than a search.
+final class LatencyHistogram {
+
+    static final int BUCKETS = 26;
+
+    private static final int SUM = BUCKETS;
+
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private static final int NANOS_SCALE = 9;
+
+    private final StripedCounters counters = new StripedCounters(BUCKETS + 1);
+
+    void record(long nanos) {
+        // Rounded up, as the bounds are inclusive
+        long micros = (nanos + NANOS_PER_MICRO - 1) / NANOS_PER_MICRO;
+        int bucket = micros <= 0 ? 0 : Math.min(Long.SIZE - Long.numberOfLeadingZeros(micros - 1), BUCKETS - 1);
+
+        this.counters.increment(bucket);
+        this.counters.add(SUM, nanos);
+    }
+
+    // The count of each bucket, not including the buckets below it
+    long[] getBucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = this.counters.get(bucket);
+        }
+        return counts;
+    }
+
+    long getSum() {
+        return this.counters.get(SUM);
+    }
+
+    // The inclusive upper bound of a bucket in seconds, or null for the last, unbounded, bucket
+    static BigDecimal getUpperBound(int bucket) {
+        return bucket < BUCKETS - 1 ? BigDecimal.valueOf((1L << bucket) * NANOS_PER_MICRO, NANOS_SCALE) : null;
+    }
+
+    static BigDecimal toSeconds(long nanos) {
+        return BigDecimal.valueOf(nanos, NANOS_SCALE);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameRepository;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+// Times every request-handling operation of the game repository it wraps.  Counting games by status is left untimed, as it
+// is the metrics themselves that call it.
+final class MeteredGameRepository implements GameRepository {
+
+    static final String CREATE = "create";
+
+    static final String CREATE_BATCH = "createBatch";
+
+    static final String RETRIEVE = "retrieve";
+
+    static final String RETRIEVE_BATCH = "retrieveBatch";
+
+    static final String REMOVE = "remove";
+
+    static final List<String> OPERATIONS = Arrays.asList(CREATE, CREATE_BATCH, RETRIEVE, RETRIEVE_BATCH, REMOVE);
+
+    private final GameRepository gameRepository;
+
+    private final LatencyHistogram create;
+
+    private final LatencyHistogram createBatch;
+
+    private final LatencyHistogram retrieve;
+
+    private final LatencyHistogram retrieveBatch;
+
+    private final LatencyHistogram remove;
+
+    MeteredGameRepository(GameRepository gameRepository, Metrics metrics) {
+        this.gameRepository = gameRepository;
+        this.create = metrics.getOperationHistogram(CREATE);
+        this.createBatch = metrics.getOperationHistogram(CREATE_BATCH);
+        this.retrieve = metrics.getOperationHistogram(RETRIEVE);
+        this.retrieveBatch = metrics.getOperationHistogram(RETRIEVE_BATCH);
+        this.remove = metrics.getOperationHistogram(REMOVE);
+    }
+
+    public Game create() {
+        long start = System.nanoTime();
+        try {
+            return this.gameRepository.create();
+        } finally {
+            this.create.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Game> create(int count) {
+        long start = System.nanoTime();
+        try {
+            return this.gameRepository.create(count);
+        } finally {
+            this.createBatch.record(System.nanoTime() - start);
+        }
+    }
+
+    public Game retrieve(Long id) throws GameDoesNotExistException {
+        long start = System.nanoTime();
+        try {
+            return this.gameRepository.retrieve(id);
+        } finally {
+            this.retrieve.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<Game> retrieve(long[] ids) {
+        long start = System.nanoTime();
+        try {
+            return this.gameRepository.retrieve(ids);
+        } finally {
+            this.retrieveBatch.record(System.nanoTime() - start);
+        }
+    }
+
+    public void remove(Long id) throws GameDoesNotExistException {
+        long start = System.nanoTime();
+        try {
+            this.gameRepository.remove(id);
+        } finally {
+            this.remove.record(System.nanoTime() - start);
+        }
+    }
+
+    public Map<GameStatus, Integer> countByStatus() {
+        return this.gameRepository.countByStatus();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import com.nebhale.letsmakeadeal.GameRepository;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+// Every histogram and counter is created up front, so the maps are never written after construction and recording is a
+// lookup followed by striped increments
+@Component
+final class Metrics {
+
+    private static final List<HttpStatus> ERROR_STATUSES = Arrays.asList(HttpStatus.BAD_REQUEST, HttpStatus.NOT_FOUND, HttpStatus.CONFLICT,
+        HttpStatus.SERVICE_UNAVAILABLE);
+
+    private final GameRepository gameRepository;
+
+    private final Map<String, LatencyHistogram> requests = new TreeMap<String, LatencyHistogram>();
+
+    private final Map<String, LatencyHistogram> operations = new LinkedHashMap<String, LatencyHistogram>();
+
+    private final StripedCounters errors = new StripedCounters(ERROR_STATUSES.size());
+
+    @Autowired
+    Metrics(GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+
+        for (Method method : GamesController.class.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(RequestMapping.class)) {
+                this.requests.put(method.getName(), new LatencyHistogram());
+            }
+        }
+
+        for (String operation : MeteredGameRepository.OPERATIONS) {
+            this.operations.put(operation, new LatencyHistogram());
+        }
+    }
+
+    // Null for anything but a GamesController handler
+    LatencyHistogram getRequestHistogram(String handler) {
+        return this.requests.get(handler);
+    }
+
+    LatencyHistogram getOperationHistogram(String operation) {
+        return this.operations.get(operation);
+    }
+
+    void countError(HttpStatus status) {
+        int index = ERROR_STATUSES.indexOf(status);
+        if (index >= 0) {
+            this.errors.increment(index);
+        }
+    }
+
+    // The Prometheus text exposition format, version 0.0.4.  Request rates are the rates of the histograms' counts.
+    String scrape() {
+        StringBuilder out = new StringBuilder();
+
+        writeHeader(out, "games_request_duration_seconds", "histogram", "Time from receiving a game request to completing its response");
+        for (Map.Entry<String, LatencyHistogram> entry : this.requests.entrySet()) {
+            writeHistogram(out, "games_request_duration_seconds", "handler", entry.getKey(), entry.getValue());
+        }
+
+        writeHeader(out, "games_request_errors_total", "counter", "Game requests that failed, by response status");
+        for (int i = 0; i < ERROR_STATUSES.size(); i++) {
+            writeSample(out, "games_request_errors_total", "status", Integer.toString(ERROR_STATUSES.get(i).value()), null,
+                Long.toString(this.errors.get(i)));
+        }
+
+        writeHeader(out, "games_repository_operation_duration_seconds", "histogram", "Time taken by game repository operations");
+        for (Map.Entry<String, LatencyHistogram> entry : this.operations.entrySet()) {
+            writeHistogram(out, "games_repository_operation_duration_seconds", "operation", entry.getKey(), entry.getValue());
+        }
+
+        writeHeader(out, "games_live", "gauge", "Games currently held, by status");
+        for (Map.Entry<GameStatus, Integer> entry : this.gameRepository.countByStatus().entrySet()) {
+            writeSample(out, "games_live", "status", entry.getKey().name(), null, entry.getValue().toString());
+        }
+
+        return out.toString();
+    }
+
+    private static void writeHeader(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    // Bucket counts are read once and accumulated, so that the +Inf bucket and the count always agree
+    private static void writeHistogram(StringBuilder out, String name, String label, String value, LatencyHistogram histogram) {
+        long[] counts = histogram.getBucketCounts();
+
+        long cumulative = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            cumulative += counts[bucket];
+
+            BigDecimal upperBound = LatencyHistogram.getUpperBound(bucket);
+            String le = upperBound == null ? "+Inf" : upperBound.stripTrailingZeros().toPlainString();
+            writeSample(out, name + "_bucket", label, value, le, Long.toString(cumulative));
+        }
+
+        writeSample(out, name + "_sum", label, value, null, LatencyHistogram.toSeconds(histogram.getSum()).toPlainString());
+        writeSample(out, name + "_count", label, value, null, Long.toString(cumulative));
+    }
+
+    private static void writeSample(StringBuilder out, String name, String label, String value, String le, String sample) {
+        out.append(name).append('{').append(label).append("=\"").append(value).append('"');
+        if (le != null) {
+            out.append(",le=\"").append(le).append('"');
+        }
+        out.append("} ").append(sample).append('\n');
+    }
+}
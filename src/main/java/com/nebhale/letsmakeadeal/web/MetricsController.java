@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+@Controller
+@RequestMapping("/metrics")
+final class MetricsController {
+
+    private static final MediaType TEXT_FORMAT = MediaType.valueOf("text/plain; version=0.0.4; charset=utf-8");
+
+    private final Metrics metrics;
+
+    @Autowired
+    MetricsController(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Answered on the container thread, so that metrics can still be scraped when the request executor is saturated
+    @RequestMapping(method = RequestMethod.GET, value = "", produces = MediaType.TEXT_PLAIN_VALUE)
+    ResponseEntity<String> showMetrics() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(TEXT_FORMAT);
+
+        return new ResponseEntity<String>(this.metrics.scrape(), headers, HttpStatus.OK);
+    }
+
+}
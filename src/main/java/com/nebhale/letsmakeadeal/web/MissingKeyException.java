@@ -20,10 +20,15 @@ final class MissingKeyException extends Exception {
 
     private static final long serialVersionUID = 8871262472437289684L;
 
-    private static final String MESSAGE_FORMAT = "Payload is missing key '%s'";
+    private final String key;
 
     public MissingKeyException(String key) {
-        super(String.format(MESSAGE_FORMAT, key));
+        super(null, null, false, false);
+        this.key = key;
+    }
+
+    public String getMessage() {
+        return "Payload is missing key '" + this.key + "'";
     }
 
 }
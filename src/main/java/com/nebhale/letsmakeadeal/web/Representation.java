@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import com.nebhale.letsmakeadeal.Game;
+
+final class Representation {
+
+    // A size for representations of every door, rather than a page of them
+    static final int UNPAGED = 0;
+
+    enum Type {
+        GAME, //
+        DOORS;
+    }
+
+    private final Type type;
+
+    private final Game game;
+
+    private final long state;
+
+    private final String gamesUri;
+
+    private final int page;
+
+    private final int size;
+
+    Representation(Type type, Game game, long state, String gamesUri) {
+        this(type, game, state, gamesUri, 0, UNPAGED);
+    }
+
+    Representation(Type type, Game game, long state, String gamesUri, int page, int size) {
+        this.type = type;
+        this.game = game;
+        this.state = state;
+        this.gamesUri = gamesUri;
+        this.page = page;
+        this.size = size;
+    }
+
+    Type getType() {
+        return this.type;
+    }
+
+    Game getGame() {
+        return this.game;
+    }
+
+    long getState() {
+        return this.state;
+    }
+
+    String getGamesUri() {
+        return this.gamesUri;
+    }
+
+    int getPage() {
+        return this.page;
+    }
+
+    int getSize() {
+        return this.size;
+    }
+
+    // The index of the first door represented, always 0 for a game
+    int getFirstDoor() {
+        if (Type.GAME == this.type || UNPAGED == this.size) {
+            return 0;
+        }
+        return (int) Math.min((long) this.page * this.size, this.game.getDoorCount());
+    }
+
+    // One past the index of the last door represented, always 0 for a game
+    int getLastDoor() {
+        if (Type.GAME == this.type) {
+            return 0;
+        } else if (UNPAGED == this.size) {
+            return this.game.getDoorCount();
+        }
+        return (int) Math.min((long) getFirstDoor() + this.size, this.game.getDoorCount());
+    }
+
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+
+@Component
+final class RepresentationCache {
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    // Buffers that grew beyond this while rendering a large page of doors are let go rather than kept by their thread
+    private static final int MAX_POOLED_BUFFER = 64 * 1024;
+
+    private final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>() {
+
+        protected Buffer initialValue() {
+            return new Buffer();
+        }
+    };
+
+    private final RepresentationWriter representationWriter;
+
+    private final int maxEntries;
+
+    private final ConcurrentMap<Key, Template> templates = new ConcurrentHashMap<Key, Template>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Object evictionMonitor = new Object();
+
+    // The clock hand, guarded by evictionMonitor
+    private Iterator<Map.Entry<Key, Template>> evictionCursor;
+
+    @Autowired
+    RepresentationCache(RepresentationWriter representationWriter, @Value("${games.representation-cache.max-entries}") int maxEntries) {
+        this.representationWriter = representationWriter;
+        this.maxEntries = maxEntries;
+    }
+
+    // The base URI that games are beneath is substituted into a template along with the game's id, so clients that address the
+    // service by different hosts share templates.  Base URIs that JSON or XML would have to escape are never templated.
+    void write(Representation representation, MediaType mediaType, OutputStream out) throws IOException {
+        Game game = representation.getGame();
+        long state = representation.getState();
+        String gamesUri = representation.getGamesUri();
+        boolean templated = isVerbatim(gamesUri);
+
+        Key key = new Key(representation.getType(), mediaType, state, representation.getPage(), representation.getSize());
+        Template template = templated ? this.templates.get(key) : null;
+        if (template != null && template.matches(game)) {
+            template.touch();
+            template.write(gamesUri, game.getId(), out);
+            return;
+        }
+
+        Buffer buffer = this.buffers.get();
+        buffer.reset();
+        try {
+            this.representationWriter.write(representation, mediaType, buffer);
+
+            if (templated) {
+                template = Template.parse(buffer.bytes(), buffer.size(), gamesUri + "/" + game.getId(),
+                    RepresentationWriter.countLinks(representation), representation.getFirstDoor(), representation.getLastDoor(), game);
+                if (template != null) {
+                    put(key, template);
+                }
+            }
+
+            out.write(buffer.bytes(), 0, buffer.size());
+        } finally {
+            if (buffer.bytes().length > MAX_POOLED_BUFFER) {
+                this.buffers.remove();
+            }
+        }
+    }
+
+    int size() {
+        return this.size.get();
+    }
+
+    boolean contains(Representation representation, MediaType mediaType) {
+        return this.templates.containsKey(new Key(representation.getType(), mediaType, representation.getState(),
+            representation.getPage(), representation.getSize()));
+    }
+
+    // Only a miss adds a template, so only a miss evicts.  Eviction approximates least recently used with a clock: the hand
+    // clears the mark a hit leaves on a template and takes the first template it finds unmarked, other than the one just added.
+    private void put(Key key, Template template) {
+        if (this.maxEntries <= 0 || this.templates.putIfAbsent(key, template) != null || this.size.incrementAndGet() <= this.maxEntries) {
+            return;
+        }
+
+        synchronized (this.evictionMonitor) {
+            while (this.size.get() > this.maxEntries) {
+                if (this.evictionCursor == null || !this.evictionCursor.hasNext()) {
+                    this.evictionCursor = this.templates.entrySet().iterator();
+                }
+
+                Map.Entry<Key, Template> entry = this.evictionCursor.next();
+                Template candidate = entry.getValue();
+                if (candidate != template && !candidate.clearReferenced() && this.templates.remove(entry.getKey(), candidate)) {
+                    this.size.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static boolean isVerbatim(String gamesUri) {
+        for (int i = 0; i < gamesUri.length(); i++) {
+            char c = gamesUri.charAt(i);
+            if (c <= ' ' || c >= 0x7F || c == '"' || c == '&' || c == '\'' || c == '<' || c == '>' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Key {
+
+        private final Representation.Type type;
+
+        private final MediaType mediaType;
+
+        private final long state;
+
+        private final int page;
+
+        private final int size;
+
+        private Key(Representation.Type type, MediaType mediaType, long state, int page, int size) {
+            this.type = type;
+            this.mediaType = mediaType;
+            this.state = state;
+            this.page = page;
+            this.size = size;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return this.state == other.state && this.page == other.page && this.size == other.size && this.type == other.type
+                && this.mediaType.equals(other.mediaType);
+        }
+
+        public int hashCode() {
+            int hash = this.type.hashCode();
+            hash = 31 * hash + this.mediaType.hashCode();
+            hash = 31 * hash + this.page;
+            hash = 31 * hash + this.size;
+            return 31 * hash + (int) (this.state ^ (this.state >>> 32));
+        }
+    }
+
+    private static final class Template {
+
+        private final byte[][] segments;
+
+        private final int doorCount;
+
+        private final int firstDoor;
+
+        private final long[] doorIds;
+
+        private volatile boolean referenced;
+
+        private Template(byte[][] segments, int doorCount, int firstDoor, long[] doorIds) {
+            this.segments = segments;
+            this.doorCount = doorCount;
+            this.firstDoor = firstDoor;
+            this.doorIds = doorIds;
+        }
+
+        // Only the ids of the doors that were rendered, from the firstDoor-th up to the lastDoor-th, need to match for the template
+        // to be reused
+        static Template parse(byte[] rendered, int length, String gameUri, int expectedOccurrences, int firstDoor, int lastDoor,
+            Game game) {
+            byte[] token = gameUri.getBytes(US_ASCII);
+
+            List<byte[]> segments = new ArrayList<byte[]>();
+            int start = 0;
+            for (int i = indexOf(rendered, length, token, 0); i >= 0; i = indexOf(rendered, length, token, i + token.length)) {
+                segments.add(Arrays.copyOfRange(rendered, start, i));
+                start = i + token.length;
+            }
+            segments.add(Arrays.copyOfRange(rendered, start, length));
+
+            if (segments.size() - 1 != expectedOccurrences) {
+                return null;
+            }
+
+            long[] doorIds = new long[lastDoor - firstDoor];
+            for (int i = 0; i < doorIds.length; i++) {
+                doorIds[i] = game.getDoorId(firstDoor + i);
+            }
+
+            return new Template(segments.toArray(new byte[segments.size()][]), game.getDoorCount(), firstDoor, doorIds);
+        }
+
+        boolean matches(Game game) {
+            if (game.getDoorCount() != this.doorCount) {
+                return false;
+            }
+
+            for (int i = 0; i < this.doorIds.length; i++) {
+                if (this.doorIds[i] != game.getDoorId(this.firstDoor + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Read before written, so that hits on a template already marked do not write to memory shared between threads
+        void touch() {
+            if (!this.referenced) {
+                this.referenced = true;
+            }
+        }
+
+        boolean clearReferenced() {
+            if (this.referenced) {
+                this.referenced = false;
+                return true;
+            }
+            return false;
+        }
+
+        void write(String gamesUri, Long gameId, OutputStream out) throws IOException {
+            byte[] gameUri = (gamesUri + "/" + gameId).getBytes(US_ASCII);
+            for (int i = 0; i < this.segments.length; i++) {
+                if (i > 0) {
+                    out.write(gameUri);
+                }
+                out.write(this.segments[i]);
+            }
+        }
+
+        private static int indexOf(byte[] bytes, int length, byte[] token, int from) {
+            outer: for (int i = from; i <= length - token.length; i++) {
+                for (int j = 0; j < token.length; j++) {
+                    if (bytes[i + j] != token[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    // Exposes its array so that a rendering can be parsed and copied to the response without first being copied out
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer() {
+            super(1024);
+        }
+
+        byte[] bytes() {
+            return this.buf;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+@Component
+final class RepresentationHttpMessageConverter extends AbstractHttpMessageConverter<Representation> {
+
+    private final RepresentationCache representationCache;
+
+    @Autowired
+    RepresentationHttpMessageConverter(RepresentationCache representationCache) {
+        super(MediaType.APPLICATION_JSON, MediaType.TEXT_XML, BinaryRepresentation.MEDIA_TYPE);
+        this.representationCache = representationCache;
+    }
+
+    protected boolean supports(Class<?> clazz) {
+        return Representation.class.isAssignableFrom(clazz);
+    }
+
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    protected Representation readInternal(Class<? extends Representation> clazz, HttpInputMessage inputMessage) throws IOException,
+        HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("Representations cannot be read");
+    }
+
+    protected void writeInternal(Representation representation, HttpOutputMessage outputMessage) throws IOException,
+        HttpMessageNotWritableException {
+        MediaType mediaType = outputMessage.getHeaders().getContentType();
+        if (BinaryRepresentation.MEDIA_TYPE.includes(mediaType)) {
+            BinaryRepresentation.write(representation, outputMessage.getBody());
+        } else {
+            this.representationCache.write(representation, mediaType, outputMessage.getBody());
+        }
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Game;
+
+// Streams the JSON and XML of game and doors representations straight from the state each representation captured, producing
+// what Jackson and JAXB produced for the HATEOAS resources that used to be assembled for them.  Doors are read by index, so
+// rendering allocates neither a snapshot of the game nor door objects.  Jackson's generators recycle their buffers between
+// uses on the same thread.
+@Component
+final class RepresentationWriter {
+
+    private static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+
+    private static final byte[] XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>".getBytes(Charset
+        .forName("US-ASCII"));
+
+    private static final String PAGE_FORMAT = "%s?page=%d&size=%d";
+
+    private static final String DOORS_REL = "doors";
+
+    private static final String HISTORY_REL = "history";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    RepresentationWriter() {
+        this.jsonFactory.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    }
+
+    void write(Representation representation, MediaType mediaType, OutputStream out) throws IOException {
+        if (MediaType.APPLICATION_JSON.includes(mediaType)) {
+            writeJson(representation, out);
+        } else if (MediaType.TEXT_XML.includes(mediaType)) {
+            writeXml(representation, out);
+        } else {
+            throw new IllegalArgumentException(String.format("Cannot write a representation as '%s'", mediaType));
+        }
+    }
+
+    // Every link of a representation is beneath its game, so the game's URI occurs once per link
+    static int countLinks(Representation representation) {
+        if (Representation.Type.GAME == representation.getType()) {
+            return 3;
+        }
+
+        int links = 1 + representation.getLastDoor() - representation.getFirstDoor();
+        if (Representation.UNPAGED != representation.getSize()) {
+            links += representation.getPage() > 0 ? 1 : 0;
+            links += representation.getLastDoor() < representation.getGame().getDoorCount() ? 1 : 0;
+        }
+        return links;
+    }
+
+    private void writeJson(Representation representation, OutputStream out) throws IOException {
+        Game game = representation.getGame();
+        long state = representation.getState();
+        String gameUri = representation.getGamesUri() + "/" + game.getId();
+
+        JsonGenerator json = this.jsonFactory.createJsonGenerator(out, JsonEncoding.UTF8);
+        json.writeStartObject();
+
+        if (Representation.Type.GAME == representation.getType()) {
+            json.writeArrayFieldStart("links");
+            writeJsonLink(json, Link.REL_SELF, gameUri);
+            writeJsonLink(json, DOORS_REL, gameUri + "/doors");
+            writeJsonLink(json, HISTORY_REL, gameUri + "/history");
+            json.writeEndArray();
+            json.writeStringField("status", Game.statusOf(state).name());
+        } else {
+            String doorsUri = gameUri + "/doors";
+
+            json.writeArrayFieldStart("links");
+            writeJsonPageLinks(json, representation, doorsUri);
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("doors");
+            for (int index = representation.getFirstDoor(); index < representation.getLastDoor(); index++) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("links");
+                writeJsonLink(json, Link.REL_SELF, doorsUri + "/" + game.getDoorId(index));
+                json.writeEndArray();
+                json.writeStringField("content", game.getDoorContent(state, index).name());
+                json.writeStringField("status", game.getDoorStatus(state, index).name());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+
+        json.writeEndObject();
+        json.close();
+    }
+
+    private void writeXml(Representation representation, OutputStream out) throws IOException {
+        Game game = representation.getGame();
+        long state = representation.getState();
+        String gameUri = representation.getGamesUri() + "/" + game.getId();
+
+        out.write(XML_DECLARATION);
+        try {
+            XMLStreamWriter xml = this.xmlOutputFactory.createXMLStreamWriter(out, "UTF-8");
+
+            if (Representation.Type.GAME == representation.getType()) {
+                xml.writeStartElement("game");
+                xml.writeNamespace("atom", ATOM_NAMESPACE);
+                xml.writeAttribute("status", Game.statusOf(state).name());
+                writeXmlLink(xml, Link.REL_SELF, gameUri);
+                writeXmlLink(xml, DOORS_REL, gameUri + "/doors");
+                writeXmlLink(xml, HISTORY_REL, gameUri + "/history");
+            } else {
+                String doorsUri = gameUri + "/doors";
+
+                // The root element shares the name of the door elements, as the JAXB binding always had it
+                xml.writeStartElement("door");
+                xml.writeNamespace("atom", ATOM_NAMESPACE);
+                writeXmlPageLinks(xml, representation, doorsUri);
+
+                for (int index = representation.getFirstDoor(); index < representation.getLastDoor(); index++) {
+                    xml.writeStartElement("door");
+                    xml.writeAttribute("content", game.getDoorContent(state, index).name());
+                    xml.writeAttribute("status", game.getDoorStatus(state, index).name());
+                    writeXmlLink(xml, Link.REL_SELF, doorsUri + "/" + game.getDoorId(index));
+                    xml.writeEndElement();
+                }
+            }
+
+            xml.writeEndElement();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void writeJsonPageLinks(JsonGenerator json, Representation representation, String doorsUri) throws IOException {
+        if (Representation.UNPAGED == representation.getSize()) {
+            writeJsonLink(json, Link.REL_SELF, doorsUri);
+            return;
+        }
+
+        int page = representation.getPage();
+        writeJsonLink(json, Link.REL_SELF, pageUri(doorsUri, page, representation));
+        if (page > 0) {
+            writeJsonLink(json, Link.REL_PREVIOUS, pageUri(doorsUri, page - 1, representation));
+        }
+        if (representation.getLastDoor() < representation.getGame().getDoorCount()) {
+            writeJsonLink(json, Link.REL_NEXT, pageUri(doorsUri, page + 1, representation));
+        }
+    }
+
+    private static void writeXmlPageLinks(XMLStreamWriter xml, Representation representation, String doorsUri) throws XMLStreamException {
+        if (Representation.UNPAGED == representation.getSize()) {
+            writeXmlLink(xml, Link.REL_SELF, doorsUri);
+            return;
+        }
+
+        int page = representation.getPage();
+        writeXmlLink(xml, Link.REL_SELF, pageUri(doorsUri, page, representation));
+        if (page > 0) {
+            writeXmlLink(xml, Link.REL_PREVIOUS, pageUri(doorsUri, page - 1, representation));
+        }
+        if (representation.getLastDoor() < representation.getGame().getDoorCount()) {
+            writeXmlLink(xml, Link.REL_NEXT, pageUri(doorsUri, page + 1, representation));
+        }
+    }
+
+    private static void writeJsonLink(JsonGenerator json, String rel, String href) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("rel", rel);
+        json.writeStringField("href", href);
+        json.writeEndObject();
+    }
+
+    private static void writeXmlLink(XMLStreamWriter xml, String rel, String href) throws XMLStreamException {
+        xml.writeEmptyElement("atom", "link", ATOM_NAMESPACE);
+        xml.writeAttribute("rel", rel);
+        xml.writeAttribute("href", href);
+    }
+
+    private static String pageUri(String doorsUri, int page, Representation representation) {
+        return String.format(PAGE_FORMAT, doorsUri, page, representation.getSize());
+    }
+}
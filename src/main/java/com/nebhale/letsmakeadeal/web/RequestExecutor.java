@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+@Component
+@ManagedResource(objectName = "com.nebhale.letsmakeadeal:type=RequestExecutor")
+final class RequestExecutor {
+
+    private static final String MESSAGE_FORMAT = "More than %d requests are waiting to be processed";
+
+    private static final String BUSY_MESSAGE_FORMAT = "%d requests are already being processed";
+
+    private final ThreadPoolExecutor executor;
+
+    private final int queueCapacity;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    RequestExecutor(@Value("${games.async.threads}") int threads, @Value("${games.async.queue-capacity}") int queueCapacity) {
+        this("game-request", threads, queueCapacity);
+    }
+
+    // With no queue capacity, requests are rejected whenever every thread is busy rather than waiting for one
+    RequestExecutor(String name, final int threads, int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+
+        if (threads > 0) {
+            BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<Runnable>(queueCapacity)
+                : new SynchronousQueue<Runnable>();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, new RequestThreadFactory(name),
+                new RejectedExecutionHandler() {
+
+                    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                        RequestExecutor.this.rejected.incrementAndGet();
+                        int queueCapacity = RequestExecutor.this.queueCapacity;
+                        throw new RejectedExecutionException(queueCapacity > 0 ? String.format(MESSAGE_FORMAT, queueCapacity)
+                            : String.format(BUSY_MESSAGE_FORMAT, threads));
+                    }
+                });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    <T> DeferredResult<T> submit(Callable<T> task) {
+        return submit(task, new DeferredResult<T>());
+    }
+
+    <T> DeferredResult<T> submit(Callable<T> task, long timeout) {
+        return submit(task, new DeferredResult<T>(timeout));
+    }
+
+    // onTimeout runs when the request times out, while the task may still be running
+    <T> DeferredResult<T> submit(Callable<T> task, long timeout, Runnable onTimeout) {
+        DeferredResult<T> result = new DeferredResult<T>(timeout);
+        result.onTimeout(onTimeout);
+        return submit(task, result);
+    }
+
+    private <T> DeferredResult<T> submit(final Callable<T> task, final DeferredResult<T> result) {
+
+        Runnable runnable = new Runnable() {
+
+            public void run() {
+                try {
+                    result.setResult(task.call());
+                } catch (Exception e) {
+                    result.setErrorResult(e);
+                }
+            }
+        };
+
+        if (this.executor == null) {
+            runnable.run();
+        } else {
+            this.executor.execute(runnable);
+        }
+
+        return result;
+    }
+
+    @ManagedAttribute(description = "The number of requests waiting for a thread")
+    public int getQueueDepth() {
+        return this.executor == null ? 0 : this.executor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "The number of requests that can wait for a thread before new ones are rejected")
+    public int getQueueCapacity() {
+        return this.executor == null ? 0 : this.queueCapacity;
+    }
+
+    @ManagedAttribute(description = "The number of threads processing requests")
+    public int getActiveCount() {
+        return this.executor == null ? 0 : this.executor.getActiveCount();
+    }
+
+    @ManagedAttribute(description = "The number of requests processed")
+    public long getCompletedCount() {
+        return this.executor == null ? 0 : this.executor.getCompletedTaskCount();
+    }
+
+    @ManagedAttribute(description = "The number of requests rejected because the queue was full")
+    public long getRejectedCount() {
+        return this.rejected.get();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private static final class RequestThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final String name;
+
+        private RequestThreadFactory(String name) {
+            this.name = name;
+        }
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, this.name + "-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
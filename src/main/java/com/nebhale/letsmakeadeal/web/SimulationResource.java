@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.springframework.hateoas.ResourceSupport;
+
+import com.nebhale.letsmakeadeal.PlayerStrategy;
+
+@XmlRootElement(name = "simulation")
+final class SimulationResource extends ResourceSupport {
+
+    @XmlAttribute
+    public volatile PlayerStrategy strategy;
+
+    @XmlAttribute
+    public volatile long seed;
+
+    @XmlAttribute
+    public volatile long duration;
+
+    @XmlAttribute
+    public volatile double gamesPerSecond;
+
+    @XmlElement
+    public volatile WinRateResource total;
+
+    @XmlElement
+    public volatile WinRateResource switched;
+
+    @XmlElement
+    public volatile WinRateResource stayed;
+}
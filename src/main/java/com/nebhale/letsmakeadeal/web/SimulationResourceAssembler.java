@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.Simulation;
+import com.nebhale.letsmakeadeal.WinRate;
+
+@Component
+final class SimulationResourceAssembler {
+
+    SimulationResource toResource(Simulation simulation) {
+        SimulationResource resource = new SimulationResource();
+        resource.strategy = simulation.getStrategy();
+        resource.seed = simulation.getSeed();
+        resource.duration = simulation.getDuration();
+        resource.gamesPerSecond = simulation.getGamesPerSecond();
+        resource.total = toResource(simulation.getWinRate());
+        resource.switched = toResource(simulation.getSwitched());
+        resource.stayed = toResource(simulation.getStayed());
+        return resource;
+    }
+
+    private WinRateResource toResource(WinRate winRate) {
+        WinRateResource resource = new WinRateResource();
+        resource.games = winRate.getGames();
+        resource.wins = winRate.getWins();
+        resource.winRate = winRate.getRate();
+        resource.lowerBound = winRate.getLowerBound();
+        resource.upperBound = winRate.getUpperBound();
+        return resource;
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.security.SecureRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.nebhale.letsmakeadeal.GameSimulator;
+import com.nebhale.letsmakeadeal.PlayerStrategy;
+
+@Controller
+@RequestMapping("/simulations")
+final class SimulationsController {
+
+    private static final String RETRY_AFTER = "1";
+
+    private final SecureRandom seeds = new SecureRandom();
+
+    private final GameSimulator gameSimulator;
+
+    private final SimulationResourceAssembler simulationResourceAssembler;
+
+    private final RequestExecutor simulationExecutor;
+
+    private final long maxGames;
+
+    private final long timeout;
+
+    // Simulations keep every core busy for as long as they run, so they have threads of their own rather than holding the threads
+    // that game requests are processed on, and are turned away while concurrentRuns of them are already running
+    @Autowired
+    SimulationsController(GameSimulator gameSimulator, SimulationResourceAssembler simulationResourceAssembler,
+        @Value("${games.simulation.concurrent-runs}") int concurrentRuns, @Value("${games.simulation.max-games}") long maxGames,
+        @Value("${games.simulation.timeout}") long timeout) {
+        this.gameSimulator = gameSimulator;
+        this.simulationResourceAssembler = simulationResourceAssembler;
+        this.simulationExecutor = new RequestExecutor("game-simulation", concurrentRuns, 0);
+        this.maxGames = maxGames;
+        this.timeout = timeout;
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE })
+    DeferredResult<ResponseEntity<SimulationResource>> simulate(@RequestParam final long games, @RequestParam(value = "strategy",
+        defaultValue = "switch") String strategy, @RequestParam(value = "seed", required = false) Long seed) {
+        if (games < 1 || games > this.maxGames) {
+            throw new IllegalArgumentException(String.format("'%d' is an illegal value for parameter 'games', must be between 1 and %d",
+                games, this.maxGames));
+        }
+
+        final PlayerStrategy playerStrategy = getStrategy(strategy);
+        final long simulationSeed = seed == null ? this.seeds.nextLong() : seed;
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        return this.simulationExecutor.submit(new Callable<ResponseEntity<SimulationResource>>() {
+
+            public ResponseEntity<SimulationResource> call() {
+                return new ResponseEntity<SimulationResource>(SimulationsController.this.simulationResourceAssembler.toResource(
+                    SimulationsController.this.gameSimulator.simulate(games, playerStrategy, simulationSeed, cancelled)), HttpStatus.OK);
+            }
+        }, this.timeout, new Runnable() {
+
+            public void run() {
+                cancelled.set(true);
+            }
+        });
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    ResponseEntity<String> handleBadRequests(Exception e) {
+        return new ResponseEntity<String>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    ResponseEntity<String> handleRejections(Exception e) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Retry-After", RETRY_AFTER);
+
+        return new ResponseEntity<String>(e.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @PreDestroy
+    void stop() {
+        this.simulationExecutor.stop();
+    }
+
+    private static PlayerStrategy getStrategy(String value) {
+        try {
+            return PlayerStrategy.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("'%s' is an illegal value for parameter 'strategy'", value), e);
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import com.nebhale.letsmakeadeal.GameStatistics;
+
+@Controller
+@RequestMapping("/stats")
+final class StatisticsController {
+
+    private final GameStatistics gameStatistics;
+
+    private final StatisticsResourceAssembler statisticsResourceAssembler;
+
+    @Autowired
+    StatisticsController(GameStatistics gameStatistics, StatisticsResourceAssembler statisticsResourceAssembler) {
+        this.gameStatistics = gameStatistics;
+        this.statisticsResourceAssembler = statisticsResourceAssembler;
+    }
+
+    // Summing the counters costs the same however many games exist, so unlike the game requests this is answered on the
+    // container thread
+    @RequestMapping(method = RequestMethod.GET, value = "", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_XML_VALUE })
+    ResponseEntity<StatisticsResource> showStatistics() {
+        return new ResponseEntity<StatisticsResource>(this.statisticsResourceAssembler.toResource(this.gameStatistics), HttpStatus.OK);
+    }
+
+}
@@ -16,21 +16,20 @@
 
 package com.nebhale.letsmakeadeal.web;
 
-import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import org.springframework.hateoas.ResourceSupport;
 
-import com.nebhale.letsmakeadeal.DoorContent;
-import com.nebhale.letsmakeadeal.DoorStatus;
+@XmlRootElement(name = "statistics")
+final class StatisticsResource extends ResourceSupport {
 
-@XmlRootElement(name = "door")
-final class DoorResource extends ResourceSupport {
+    @XmlElement
+    public volatile OutcomesResource total;
 
-    @XmlAttribute
-    public volatile DoorContent content;
-
-    @XmlAttribute
-    public volatile DoorStatus status;
+    @XmlElement
+    public volatile OutcomesResource lastMinute;
 
+    @XmlElement
+    public volatile OutcomesResource lastHour;
 }
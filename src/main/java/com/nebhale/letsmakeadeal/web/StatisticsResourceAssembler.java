@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+import org.springframework.stereotype.Component;
+
+import com.nebhale.letsmakeadeal.GameStatistics;
+import com.nebhale.letsmakeadeal.Outcomes;
+
+@Component
+final class StatisticsResourceAssembler {
+
+    StatisticsResource toResource(GameStatistics statistics) {
+        StatisticsResource resource = new StatisticsResource();
+        resource.total = toResource(statistics.getTotal());
+        resource.lastMinute = toResource(statistics.getLastMinute());
+        resource.lastHour = toResource(statistics.getLastHour());
+        resource.add(linkTo(StatisticsController.class).withSelfRel());
+        return resource;
+    }
+
+    private OutcomesResource toResource(Outcomes outcomes) {
+        OutcomesResource resource = new OutcomesResource();
+        resource.games = outcomes.getGames();
+        resource.switched = outcomes.getSwitched();
+        resource.switchRate = outcomes.getSwitchRate();
+        resource.switchedWinRate = outcomes.getSwitchedWinRate();
+        resource.stayedWinRate = outcomes.getStayedWinRate();
+        return resource;
+    }
+
+}
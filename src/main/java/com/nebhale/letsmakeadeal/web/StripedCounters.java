@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counters that each thread adds to in its own stripe, so that recording never contends on a cache line and never allocates.
+// Reads sum every stripe and, as counts keep arriving, are only as consistent as a sequence of volatile reads.
+final class StripedCounters {
+
+    // Each stripe is padded out to whole 64 byte cache lines, so that stripes never share one
+    private static final int LINE_LENGTH = 8;
+
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+
+    private final int stripeLength;
+
+    private final AtomicLongArray counters;
+
+    StripedCounters(int count) {
+        this.stripeLength = (count + LINE_LENGTH - 1) / LINE_LENGTH * LINE_LENGTH;
+        this.counters = new AtomicLongArray(STRIPES * this.stripeLength);
+    }
+
+    void increment(int counter) {
+        add(counter, 1);
+    }
+
+    void add(int counter, long delta) {
+        this.counters.getAndAdd(stripeOffset() + counter, delta);
+    }
+
+    long get(int counter) {
+        long sum = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            sum += this.counters.get((stripe * this.stripeLength) + counter);
+        }
+        return sum;
+    }
+
+    private int stripeOffset() {
+        return ((int) Thread.currentThread().getId() & (STRIPES - 1)) * this.stripeLength;
+    }
+}
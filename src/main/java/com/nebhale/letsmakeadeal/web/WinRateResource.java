@@ -17,16 +17,22 @@
 package com.nebhale.letsmakeadeal.web;
 
 import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.XmlRootElement;
 
-import org.springframework.hateoas.ResourceSupport;
+final class WinRateResource {
 
-import com.nebhale.letsmakeadeal.GameStatus;
+    @XmlAttribute
+    public volatile long games;
+
+    @XmlAttribute
+    public volatile long wins;
 
-@XmlRootElement(name = "game")
-final class GameResource extends ResourceSupport {
+    @XmlAttribute
+    public volatile double winRate;
+
+    @XmlAttribute
+    public volatile double lowerBound;
 
     @XmlAttribute
-    public volatile GameStatus status;
+    public volatile double upperBound;
 
 }
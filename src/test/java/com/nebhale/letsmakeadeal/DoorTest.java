@@ -18,27 +18,48 @@ package com.nebhale.letsmakeadeal;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 
 public final class DoorTest {
 
-    private final Door door = new Door(1L, DoorContent.JUERGEN);
+    private final Game game = new Game(0L, asSet(new Door(1L, DoorContent.JUERGEN), new Door(2L, DoorContent.SMALL_FURRY_ANIMAL)));
 
     @Test
-    public void test() {
-        assertEquals(Long.valueOf(1), this.door.getId());
-        assertEquals(DoorContent.JUERGEN, this.door.peekContent());
+    public void test() throws IllegalTransitionException, DoorDoesNotExistException {
+        Door door = this.game.getDoor(1L);
+
+        assertEquals(Long.valueOf(1), door.getId());
+        assertEquals(DoorContent.JUERGEN, door.peekContent());
+
+        assertEquals(DoorStatus.CLOSED, door.getStatus());
+        assertEquals(DoorContent.UNKNOWN, door.getContent());
+
+        this.game.select(1L);
+        assertEquals(DoorStatus.SELECTED, door.getStatus());
+        assertEquals(DoorContent.UNKNOWN, door.getContent());
 
-        assertEquals(DoorStatus.CLOSED, this.door.getStatus());
-        assertEquals(DoorContent.UNKNOWN, this.door.getContent());
+        this.game.open(1L);
+        assertEquals(DoorStatus.OPEN, door.getStatus());
+        assertEquals(DoorContent.JUERGEN, door.getContent());
+    }
+
+    @Test
+    public void unbound() {
+        Door door = new Door(1L, DoorContent.JUERGEN);
 
-        this.door.setStatus(DoorStatus.SELECTED);
-        assertEquals(DoorStatus.SELECTED, this.door.getStatus());
-        assertEquals(DoorContent.UNKNOWN, this.door.getContent());
+        assertEquals(DoorStatus.CLOSED, door.getStatus());
+        assertEquals(DoorContent.UNKNOWN, door.getContent());
+    }
 
-        this.door.setStatus(DoorStatus.OPEN);
-        assertEquals(DoorStatus.OPEN, this.door.getStatus());
-        assertEquals(DoorContent.JUERGEN, this.door.getContent());
+    private static final <T> Set<T> asSet(T... items) {
+        Set<T> set = new HashSet<T>();
+        for (T item : items) {
+            set.add(item);
+        }
+        return set;
     }
 
 }
@@ -17,9 +17,16 @@
 package com.nebhale.letsmakeadeal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -79,6 +86,28 @@ public final class GameTest {
         this.game.getDoor(5L);
     }
 
+    @Test
+    public void stacklessExceptions() throws DoorDoesNotExistException {
+        try {
+            this.game.open(2L);
+            fail();
+        } catch (IllegalTransitionException e) {
+            assertEquals(0, e.getStackTrace().length);
+            assertEquals("It is illegal to transition game '1' from 'AWAITING_INITIAL_SELECTION' to 'WON'", e.getMessage());
+        }
+
+        try {
+            this.game.getDoor(5L);
+            fail();
+        } catch (DoorDoesNotExistException e) {
+            assertEquals(0, e.getStackTrace().length);
+            assertEquals("Door '5' in game '1' does not exist", e.getMessage());
+        }
+
+        assertEquals("It is illegal to transition door '3' in game '0' from 'OPEN' to 'OPEN'", new IllegalTransitionException(0L, 3L,
+            DoorStatus.OPEN, DoorStatus.OPEN).getMessage());
+    }
+
     @Test(expected = IllegalTransitionException.class)
     public void selectAfterSelect() throws IllegalTransitionException, DoorDoesNotExistException {
         this.game.select(2L);
@@ -109,6 +138,382 @@ public final class GameTest {
         this.game.open(3L);
     }
 
+    @Test
+    public void play() throws IllegalTransitionException, DoorDoesNotExistException {
+        long state = this.game.play(Arrays.asList(new DoorTransition(2L, DoorStatus.SELECTED), new DoorTransition(4L, DoorStatus.OPEN)));
+
+        assertEquals(GameStatus.WON, this.game.getStatus());
+        assertEquals(this.game.getState(), state);
+        assertEquals(DoorStatus.SELECTED, this.game.getDoor(2L).getStatus());
+        assertEquals(DoorStatus.OPEN, this.game.getDoor(3L).getStatus());
+        assertEquals(DoorStatus.OPEN, this.game.getDoor(4L).getStatus());
+    }
+
+    @Test
+    public void playIsAtomic() throws DoorDoesNotExistException {
+        long initial = this.game.getState();
+
+        try {
+            this.game.play(Arrays.asList(new DoorTransition(2L, DoorStatus.SELECTED), new DoorTransition(3L, DoorStatus.OPEN)));
+            fail();
+        } catch (IllegalTransitionException e) {
+            // expected
+        }
+
+        assertEquals(initial, this.game.getState());
+        assertEquals(DoorStatus.CLOSED, this.game.getDoor(2L).getStatus());
+    }
+
+    @Test
+    public void completion() throws IllegalTransitionException, DoorDoesNotExistException {
+        final AtomicInteger completions = new AtomicInteger();
+        Game game = new Game(1L, this.game.getDoors(), new GameCompletionListener() {
+
+            public void gameCompleted(Game game, boolean switched, boolean won) {
+                assertTrue(switched);
+                assertTrue(won);
+                completions.incrementAndGet();
+            }
+        });
+
+        game.select(2L);
+        assertEquals(0, completions.get());
+
+        game.open(4L);
+        assertEquals(1, completions.get());
+    }
+
+    @Test
+    public void failingListener() throws IllegalTransitionException, DoorDoesNotExistException {
+        final AtomicInteger completions = new AtomicInteger();
+        final AtomicInteger changes = new AtomicInteger();
+        Game game = new Game(1L, this.game.getDoors(), new GameCompletionListener() {
+
+            public void gameCompleted(Game game, boolean switched, boolean won) {
+                completions.incrementAndGet();
+            }
+        });
+
+        game.addListener(new GameListener() {
+
+            public void gameChanged(Game game, long previous, long next) {
+                throw new IllegalStateException();
+            }
+        });
+        game.addListener(new GameListener() {
+
+            public void gameChanged(Game game, long previous, long next) {
+                changes.incrementAndGet();
+            }
+        });
+
+        game.select(2L);
+        game.open(4L);
+        assertEquals(2, changes.get());
+        assertEquals(1, completions.get());
+        assertEquals(GameStatus.WON, game.getStatus());
+    }
+
+    @Test
+    public void allButOneHintDoor() throws IllegalTransitionException, DoorDoesNotExistException {
+        Game game = new Game(1L, 10, 7, 8, null);
+        assertEquals(10, game.getDoorCount());
+        assertEquals(10, game.getDoors().size());
+
+        game.select(2L);
+        for (long doorId = 0; doorId < 10; doorId++) {
+            DoorStatus expected = doorId == 2 ? DoorStatus.SELECTED : (doorId == 7 ? DoorStatus.CLOSED : DoorStatus.OPEN);
+            assertEquals(expected, game.getDoor(doorId).getStatus());
+        }
+        assertEquals(DoorContent.SMALL_FURRY_ANIMAL, game.getDoor(0L).getContent());
+        assertEquals(DoorContent.UNKNOWN, game.getDoor(7L).getContent());
+
+        game.open(7L);
+        assertEquals(GameStatus.WON, game.getStatus());
+        assertEquals(DoorContent.JUERGEN, game.getDoor(7L).getContent());
+        assertEquals(13, game.getHistory().size());
+    }
+
+    @Test
+    public void someHintDoors() throws IllegalTransitionException, DoorDoesNotExistException {
+        Game game = new Game(1L, 100, 0, 3, 10, null);
+
+        game.select(0L);
+        assertEquals(DoorStatus.SELECTED, game.getDoor(0L).getStatus());
+        assertEquals(DoorStatus.CLOSED, game.getDoor(7L).getStatus());
+        assertEquals(DoorStatus.OPEN, game.getDoor(8L).getStatus());
+        assertEquals(DoorStatus.OPEN, game.getDoor(10L).getStatus());
+        assertEquals(DoorStatus.CLOSED, game.getDoor(11L).getStatus());
+        assertEquals(DoorStatus.CLOSED, game.getDoor(99L).getStatus());
+
+        try {
+            game.open(9L);
+            fail();
+        } catch (IllegalTransitionException e) {
+            assertEquals(GameStatus.AWAITING_FINAL_SELECTION, game.getStatus());
+        }
+
+        game.open(50L);
+        assertEquals(GameStatus.LOST, game.getStatus());
+    }
+
+    @Test
+    public void doorsInState() throws IllegalTransitionException, DoorDoesNotExistException {
+        Game game = new Game(1L, 100, 0, 3, 10, null);
+        long initial = game.getState();
+        game.select(0L);
+        long selected = game.getState();
+        game.open(0L);
+
+        assertEquals(8L, game.getDoorId(8));
+        assertEquals(DoorStatus.CLOSED, game.getDoorStatus(initial, 8));
+        assertEquals(DoorContent.UNKNOWN, game.getDoorContent(initial, 8));
+        assertEquals(DoorStatus.OPEN, game.getDoorStatus(selected, 8));
+        assertEquals(DoorContent.SMALL_FURRY_ANIMAL, game.getDoorContent(selected, 8));
+        assertEquals(DoorStatus.SELECTED, game.getDoorStatus(selected, 0));
+        assertEquals(DoorContent.UNKNOWN, game.getDoorContent(selected, 0));
+        assertEquals(DoorContent.JUERGEN, game.getDoorContent(game.getState(), 0));
+    }
+
+    @Test
+    public void hostChoosesAmongGoats() throws IllegalTransitionException, DoorDoesNotExistException {
+        Game first = new Game(1L, 3, 0, 1, 0, null);
+        first.select(0L);
+        assertEquals(DoorStatus.CLOSED, first.getDoor(1L).getStatus());
+        assertEquals(DoorStatus.OPEN, first.getDoor(2L).getStatus());
+
+        Game second = new Game(1L, 3, 0, 1, 1, null);
+        second.select(0L);
+        assertEquals(DoorStatus.OPEN, second.getDoor(1L).getStatus());
+        assertEquals(DoorStatus.CLOSED, second.getDoor(2L).getStatus());
+
+        Game restored = new Game(1L, 3, 0, 1, 0, second.getState(), null);
+        assertEquals(DoorStatus.OPEN, restored.getDoor(1L).getStatus());
+    }
+
+    // However the host's choices are spread, each door left closed must be left closed as often when it is the winner as any other
+    // door left closed with it is when that one is the winner
+    @Test
+    public void hintDoorsDoNotRevealWinner() throws IllegalTransitionException, DoorDoesNotExistException {
+        int doors = 6;
+        int choices = 60;
+        int[][] counts = new int[1 << doors][doors];
+
+        for (int winner = 1; winner < doors; winner++) {
+            for (int hostChoice = 0; hostChoice < choices; hostChoice++) {
+                Game game = new Game(1L, doors, winner, 2, hostChoice, null);
+                game.select(0L);
+
+                int closed = 0;
+                for (int door = 1; door < doors; door++) {
+                    if (DoorStatus.CLOSED == game.getDoor(Long.valueOf(door)).getStatus()) {
+                        closed |= 1 << door;
+                    }
+                }
+                assertTrue((closed & (1 << winner)) != 0);
+                counts[closed][winner]++;
+            }
+        }
+
+        for (int closed = 0; closed < counts.length; closed++) {
+            int expected = -1;
+            for (int door = 1; door < doors; door++) {
+                if ((closed & (1 << door)) != 0) {
+                    expected = expected < 0 ? counts[closed][door] : expected;
+                    assertEquals(expected, counts[closed][door]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void pageOfDoors() throws DoorDoesNotExistException {
+        Game game = new Game(1L, 1000, 500, 998, null);
+
+        List<Door> doors = game.getDoors(990, 1010);
+        assertEquals(10, doors.size());
+        assertEquals(Long.valueOf(990), doors.get(0).getId());
+        assertEquals(Long.valueOf(999), doors.get(9).getId());
+    }
+
+    @Test(expected = DoorDoesNotExistException.class)
+    public void numberedDoorDoesNotExist() throws DoorDoesNotExistException {
+        new Game(1L, 10, 0, 8, null).getDoor(10L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyHintDoors() {
+        new Game(1L, 10, 0, 9, null);
+    }
+
+    @Test
+    public void snapshot() throws IllegalTransitionException, DoorDoesNotExistException {
+        Game game = new Game(1L, 10, 7, 8, null);
+        long initial = game.getState();
+        game.select(2L);
+
+        Game snapshot = game.snapshot(game.getState());
+        assertEquals(DoorStatus.OPEN, snapshot.getDoor(0L).getStatus());
+        assertEquals(DoorStatus.CLOSED, snapshot.getDoor(7L).getStatus());
+        assertEquals(DoorStatus.CLOSED, game.snapshot(initial).getDoor(0L).getStatus());
+    }
+
+    @Test
+    public void history() throws IllegalTransitionException, DoorDoesNotExistException {
+        this.game.select(2L);
+        this.game.open(4L);
+
+        List<GameEvent> history = this.game.getHistory();
+        assertEquals(6, history.size());
+        assertGameEvent(GameStatus.AWAITING_INITIAL_SELECTION, history.get(0));
+        assertDoorEvent(2L, DoorStatus.SELECTED, history.get(1));
+        assertDoorEvent(3L, DoorStatus.OPEN, history.get(2));
+        assertGameEvent(GameStatus.AWAITING_FINAL_SELECTION, history.get(3));
+        assertDoorEvent(4L, DoorStatus.OPEN, history.get(4));
+        assertGameEvent(GameStatus.WON, history.get(5));
+
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(history.get(i).getTimestamp() >= history.get(i - 1).getTimestamp());
+        }
+        assertEquals(this.game.getLastModified(), history.get(5).getTimestamp());
+    }
+
+    @Test
+    public void historyOfRestoredGame() throws IllegalTransitionException, DoorDoesNotExistException {
+        this.game.select(2L);
+        Game restored = new Game(1L, this.game.getDoors(), this.game.getState());
+        restored.open(4L);
+
+        List<GameEvent> history = restored.getHistory();
+        assertEquals(6, history.size());
+        assertEquals(GameEvent.UNKNOWN_TIMESTAMP, history.get(0).getTimestamp());
+        assertEquals(GameEvent.UNKNOWN_TIMESTAMP, history.get(3).getTimestamp());
+        assertEquals(restored.getLastModified(), history.get(5).getTimestamp());
+    }
+
+    @Test
+    public void pageOfHistory() throws IllegalTransitionException, DoorDoesNotExistException {
+        for (int doors = 3; doors <= 7; doors++) {
+            for (int hintDoors = 0; hintDoors <= doors - 2; hintDoors++) {
+                for (int hostChoice = 0; hostChoice < 2 * doors; hostChoice++) {
+                    for (int selected = 0; selected < doors; selected++) {
+                        Game game = new Game(1L, doors, (selected + hostChoice) % doors, hintDoors, hostChoice, null);
+                        game.select((long) selected);
+                        assertHintEvents(game);
+
+                        for (int index = 0; index < doors; index++) {
+                            if (game.getDoorStatus(game.getState(), index) == DoorStatus.CLOSED) {
+                                game.open((long) index);
+                                break;
+                            }
+                        }
+                        assertEquals(hintDoors + 5, game.getHistorySize());
+                        assertPages(game);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stateIncreases() throws IllegalTransitionException, DoorDoesNotExistException {
+        long initial = this.game.getState();
+
+        this.game.select(2L);
+        long selected = this.game.getState();
+        assertTrue(selected > initial);
+
+        this.game.open(4L);
+        assertTrue(this.game.getState() > selected);
+    }
+
+    @Test
+    public void concurrentSelect() throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger selected = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            final Long doorId = Long.valueOf(2 + (i % 3));
+            threads[i] = new Thread(new Runnable() {
+
+                public void run() {
+                    try {
+                        start.await();
+                        GameTest.this.game.select(doorId);
+                        selected.incrementAndGet();
+                    } catch (IllegalTransitionException e) {
+                        rejected.incrementAndGet();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, selected.get());
+        assertEquals(threads.length - 1, rejected.get());
+
+        int open = 0;
+        for (Door door : this.game.getDoors()) {
+            if (DoorStatus.OPEN == door.getStatus()) {
+                open++;
+            }
+        }
+        assertEquals(1, open);
+    }
+
+    private static void assertHintEvents(Game game) {
+        List<GameEvent> history = game.getHistory();
+        assertEquals(history.size(), game.getHistorySize());
+
+        int hint = 2;
+        for (int index = 0; index < game.getDoorCount(); index++) {
+            if (game.getDoorStatus(game.getState(), index) == DoorStatus.OPEN) {
+                assertDoorEvent(game.getDoorId(index), DoorStatus.OPEN, history.get(hint++));
+            }
+        }
+        assertGameEvent(GameStatus.AWAITING_FINAL_SELECTION, history.get(hint));
+        assertEquals(history.size(), hint + 1);
+    }
+
+    private static void assertPages(Game game) {
+        List<GameEvent> history = game.getHistory();
+        for (int size = 1; size <= history.size(); size++) {
+            for (int first = 0; first < history.size(); first += size) {
+                List<GameEvent> page = game.getHistory(first, first + size);
+                assertEquals(Math.min(size, history.size() - first), page.size());
+                for (int i = 0; i < page.size(); i++) {
+                    GameEvent expected = history.get(first + i);
+                    if (expected.isDoorEvent()) {
+                        assertDoorEvent(expected.getDoorId(), expected.getDoorStatus(), page.get(i));
+                    } else {
+                        assertGameEvent(expected.getGameStatus(), page.get(i));
+                    }
+                }
+            }
+        }
+        assertEquals(0, game.getHistory(history.size(), history.size() + 10).size());
+    }
+
+    private static void assertGameEvent(GameStatus status, GameEvent event) {
+        assertFalse(event.isDoorEvent());
+        assertEquals(status, event.getGameStatus());
+    }
+
+    private static void assertDoorEvent(Long doorId, DoorStatus status, GameEvent event) {
+        assertTrue(event.isDoorEvent());
+        assertEquals(doorId, event.getDoorId());
+        assertEquals(status, event.getDoorStatus());
+    }
+
     private static final <T> Set<T> asSet(T... items) {
         Set<T> set = new HashSet<T>();
         for (T item : items) {
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.nebhale.letsmakeadeal.Door;
+import com.nebhale.letsmakeadeal.DoorStatus;
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+public final class CompactGameRepositoryTest {
+
+    private final GameFactory gameFactory = new GameFactory(new ThreadLocalWinnerPlacement(), new StripedGameStatistics(), 3, -1);
+
+    private final CompactGameRepository gameRepository = new CompactGameRepository(this.gameFactory, false);
+
+    @Test
+    public void test() throws GameDoesNotExistException {
+        Game game = this.gameRepository.create();
+        Game view = this.gameRepository.retrieve(game.getId());
+        assertNotSame(game, view);
+        assertSame(view, this.gameRepository.retrieve(game.getId()));
+        assertEquals(1, this.gameRepository.size());
+
+        this.gameRepository.remove(game.getId());
+        assertEquals(0, this.gameRepository.size());
+    }
+
+    @Test
+    public void createMany() throws Exception {
+        List<Game> games = this.gameRepository.create(1000);
+        assertEquals(1000, games.size());
+        assertEquals(1000, this.gameRepository.size());
+
+        Game game = games.get(0);
+        game.select(game.getDoors().iterator().next().getId());
+        for (Game candidate : games) {
+            assertEquals(candidate.getState(), this.gameRepository.retrieve(candidate.getId()).getState());
+        }
+    }
+
+    @Test
+    public void retrieveMany() throws GameDoesNotExistException {
+        Game first = this.gameRepository.create();
+        Game second = this.gameRepository.create();
+
+        List<Game> games = this.gameRepository.retrieve(new long[] { second.getId(), Long.MAX_VALUE, first.getId() });
+        assertEquals(2, games.size());
+        assertEquals(second.getId(), games.get(0).getId());
+        assertEquals(first.getId(), games.get(1).getId());
+        assertSame(games.get(0), this.gameRepository.retrieve(second.getId()));
+    }
+
+    @Test
+    public void manyDoors() throws Exception {
+        GameFactory gameFactory = new GameFactory(new ThreadLocalWinnerPlacement(), new StripedGameStatistics(), 1000, -1);
+        CompactGameRepository gameRepository = new CompactGameRepository(gameFactory, false);
+
+        Game game = gameRepository.create();
+        assertEquals(1000, game.getDoorCount());
+        game.select(0L);
+
+        gameRepository.dropViews();
+
+        Game view = gameRepository.retrieve(game.getId());
+        assertNotSame(game, view);
+        int closed = 0;
+        for (Door door : view.getDoors()) {
+            assertEquals(game.getDoor(door.getId()).getStatus(), door.getStatus());
+            closed += DoorStatus.CLOSED == door.getStatus() ? 1 : 0;
+        }
+        assertEquals(1, closed);
+    }
+
+    @Test
+    public void countByStatus() throws Exception {
+        this.gameRepository.create(3);
+        this.gameRepository.create().select(0L);
+
+        Map<GameStatus, Integer> counts = this.gameRepository.countByStatus();
+        assertEquals(Integer.valueOf(3), counts.get(GameStatus.AWAITING_INITIAL_SELECTION));
+        assertEquals(Integer.valueOf(1), counts.get(GameStatus.AWAITING_FINAL_SELECTION));
+        assertEquals(Integer.valueOf(0), counts.get(GameStatus.WON));
+
+        // Moves through another view of the same game are counted once
+        Game game = this.gameRepository.create();
+        game.select(0L);
+        this.gameRepository.dropViews();
+        Game view = this.gameRepository.retrieve(game.getId());
+        view.open(0L);
+        game.open(0L);
+        this.gameRepository.remove(this.gameRepository.create().getId());
+
+        counts = this.gameRepository.countByStatus();
+        assertEquals(Integer.valueOf(3), counts.get(GameStatus.AWAITING_INITIAL_SELECTION));
+        assertEquals(Integer.valueOf(1), counts.get(GameStatus.AWAITING_FINAL_SELECTION));
+        assertEquals(1, counts.get(GameStatus.WON) + counts.get(GameStatus.LOST));
+    }
+
+    @Test(expected = GameDoesNotExistException.class)
+    public void retrieveDoesNotExist() throws GameDoesNotExistException {
+        this.gameRepository.retrieve(Long.MAX_VALUE);
+    }
+
+    @Test(expected = GameDoesNotExistException.class)
+    public void removeDoesNotExist() throws GameDoesNotExistException {
+        this.gameRepository.remove(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void transitionsSurviveViews() throws Exception {
+        transitionsSurviveViews(this.gameRepository);
+    }
+
+    @Test
+    public void transitionsSurviveViewsOffHeap() throws Exception {
+        transitionsSurviveViews(new CompactGameRepository(this.gameFactory, true));
+    }
+
+    private void transitionsSurviveViews(CompactGameRepository gameRepository) throws Exception {
+        Game game = gameRepository.create();
+        Long id = game.getId();
+        assertEquals(3, game.getDoors().size());
+
+        game.select(0L);
+        gameRepository.dropViews();
+
+        Game view = gameRepository.retrieve(id);
+        assertNotSame(game, view);
+        assertEquals(GameStatus.AWAITING_FINAL_SELECTION, view.getStatus());
+        assertEquals(DoorStatus.SELECTED, view.getDoor(0L).getStatus());
+
+        Door closed = null;
+        int open = 0;
+        for (Door door : view.getDoors()) {
+            if (DoorStatus.CLOSED == door.getStatus()) {
+                closed = door;
+            } else if (DoorStatus.OPEN == door.getStatus()) {
+                open++;
+            }
+        }
+        assertEquals(1, open);
+
+        view.open(closed.getId());
+        gameRepository.dropViews();
+
+        GameStatus status = gameRepository.retrieve(id).getStatus();
+        assertTrue(GameStatus.WON == status || GameStatus.LOST == status);
+        assertEquals(DoorStatus.OPEN, gameRepository.retrieve(id).getDoor(closed.getId()).getStatus());
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.nebhale.letsmakeadeal.Door;
+import com.nebhale.letsmakeadeal.DoorStatus;
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+public final class ConcurrentGameRepositoryTest {
+
+    private static final long IDLE_TIMEOUT = 60000;
+
+    private static final long FINISHED_TIMEOUT = 1000;
+
+    private static final long ACCESS_SLACK = 5000;
+
+    private final GameFactory gameFactory = new GameFactory(new ThreadLocalWinnerPlacement(), new StripedGameStatistics(), 3, -1);
+
+    private final ConcurrentGameRepository gameRepository = new ConcurrentGameRepository(this.gameFactory, IDLE_TIMEOUT, FINISHED_TIMEOUT, 10000, 1000);
+
+    @Test
+    public void test() throws GameDoesNotExistException {
+        Game game = this.gameRepository.create();
+        assertSame(game, this.gameRepository.retrieve(game.getId()));
+        this.gameRepository.remove(game.getId());
+    }
+
+    @Test
+    public void retrieveMany() throws GameDoesNotExistException {
+        Game first = this.gameRepository.create();
+        Game second = this.gameRepository.create();
+
+        List<Game> games = this.gameRepository.retrieve(new long[] { second.getId(), Long.MAX_VALUE, first.getId() });
+        assertEquals(2, games.size());
+        assertSame(second, games.get(0));
+        assertSame(first, games.get(1));
+    }
+
+    @Test
+    public void countByStatus() throws Exception {
+        this.gameRepository.create(3);
+        this.gameRepository.create().select(0L);
+
+        Map<GameStatus, Integer> counts = this.gameRepository.countByStatus();
+        assertEquals(Integer.valueOf(3), counts.get(GameStatus.AWAITING_INITIAL_SELECTION));
+        assertEquals(Integer.valueOf(1), counts.get(GameStatus.AWAITING_FINAL_SELECTION));
+        assertEquals(Integer.valueOf(0), counts.get(GameStatus.LOST));
+
+        Game finished = this.gameRepository.create();
+        finished.select(0L);
+        finished.open(0L);
+        this.gameRepository.remove(this.gameRepository.create().getId());
+        this.gameRepository.evict(System.currentTimeMillis() + FINISHED_TIMEOUT + ACCESS_SLACK);
+
+        counts = this.gameRepository.countByStatus();
+        assertEquals(Integer.valueOf(3), counts.get(GameStatus.AWAITING_INITIAL_SELECTION));
+        assertEquals(Integer.valueOf(1), counts.get(GameStatus.AWAITING_FINAL_SELECTION));
+        assertEquals(Integer.valueOf(0), counts.get(GameStatus.WON));
+        assertEquals(Integer.valueOf(0), counts.get(GameStatus.LOST));
+    }
+
+    @Test(expected = GameDoesNotExistException.class)
+    public void retrieveDoesNotExist() throws GameDoesNotExistException {
+        this.gameRepository.retrieve(Long.MAX_VALUE);
+    }
+
+    @Test(expected = GameDoesNotExistException.class)
+    public void removeDoesNotExist() throws GameDoesNotExistException {
+        this.gameRepository.remove(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void evictIdle() throws GameDoesNotExistException {
+        Game game = this.gameRepository.create();
+
+        this.gameRepository.evict(System.currentTimeMillis());
+        assertSame(game, this.gameRepository.retrieve(game.getId()));
+
+        this.gameRepository.evict(System.currentTimeMillis() + IDLE_TIMEOUT + ACCESS_SLACK);
+        assertDoesNotExist(game.getId());
+        assertEquals(1, this.gameRepository.getIdleEvictions());
+        assertEquals(0, this.gameRepository.getSize());
+    }
+
+    @Test
+    public void evictFinished() throws Exception {
+        Game finished = this.gameRepository.create();
+        Game unfinished = this.gameRepository.create();
+
+        Iterator<Door> doors = finished.getDoors().iterator();
+        finished.select(doors.next().getId());
+        for (Door door : finished.getDoors()) {
+            if (DoorStatus.CLOSED == door.getStatus()) {
+                finished.open(door.getId());
+            }
+        }
+
+        this.gameRepository.evict(System.currentTimeMillis() + FINISHED_TIMEOUT + ACCESS_SLACK);
+        assertDoesNotExist(finished.getId());
+        assertSame(unfinished, this.gameRepository.retrieve(unfinished.getId()));
+        assertEquals(1, this.gameRepository.getFinishedEvictions());
+        assertEquals(0, this.gameRepository.getIdleEvictions());
+    }
+
+    @Test
+    public void finishedOutlastsIdleTimeout() throws Exception {
+        ConcurrentGameRepository gameRepository = new ConcurrentGameRepository(this.gameFactory, FINISHED_TIMEOUT, IDLE_TIMEOUT, 10000,
+            1000);
+        Game finished = gameRepository.create();
+        finished.select(0L);
+        finished.open(0L);
+
+        gameRepository.evict(System.currentTimeMillis() + FINISHED_TIMEOUT + ACCESS_SLACK);
+        assertSame(finished, gameRepository.retrieve(finished.getId()));
+        assertEquals(0, gameRepository.getIdleEvictions());
+        assertEquals(0, gameRepository.getFinishedEvictions());
+    }
+
+    @Test
+    public void evictOverCapacity() {
+        ConcurrentGameRepository gameRepository = new ConcurrentGameRepository(this.gameFactory, IDLE_TIMEOUT, FINISHED_TIMEOUT, 10, 1000);
+        for (int i = 0; i < 100; i++) {
+            gameRepository.create();
+        }
+        gameRepository.evict(System.currentTimeMillis());
+
+        assertEquals(10, gameRepository.getSize());
+        assertEquals(90, gameRepository.getCapacityEvictions());
+    }
+
+    @Test
+    public void createMany() throws GameDoesNotExistException {
+        List<Game> games = this.gameRepository.create(100);
+        assertEquals(100, games.size());
+        assertEquals(100, this.gameRepository.getSize());
+        for (Game game : games) {
+            assertSame(game, this.gameRepository.retrieve(game.getId()));
+        }
+    }
+
+    @Test
+    public void createManyOverCapacity() {
+        ConcurrentGameRepository gameRepository = new ConcurrentGameRepository(this.gameFactory, IDLE_TIMEOUT, FINISHED_TIMEOUT, 10, 1000);
+        gameRepository.create(100);
+        gameRepository.evict(System.currentTimeMillis());
+
+        assertEquals(10, gameRepository.getSize());
+        assertEquals(90, gameRepository.getCapacityEvictions());
+    }
+
+    @Test
+    public void concurrentCreateAndRetrieve() throws Exception {
+        final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Callable<Void> task = new Callable<Void>() {
+
+                public Void call() throws GameDoesNotExistException {
+                    for (int i = 0; i < 1000; i++) {
+                        Game game = ConcurrentGameRepositoryTest.this.gameRepository.create();
+                        assertSame(game, ConcurrentGameRepositoryTest.this.gameRepository.retrieve(game.getId()));
+                        ids.add(game.getId());
+                    }
+                    return null;
+                }
+            };
+
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(task);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(4000, ids.size());
+    }
+
+    @Test
+    public void createOverCapacityWhileEvicting() throws Exception {
+        final ConcurrentGameRepository gameRepository = new ConcurrentGameRepository(this.gameFactory, IDLE_TIMEOUT, FINISHED_TIMEOUT, 10,
+            1000);
+        final AtomicBoolean creating = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        try {
+            Future<?> sweeper = executor.submit(new Callable<Void>() {
+
+                public Void call() {
+                    while (creating.get()) {
+                        gameRepository.evict(System.currentTimeMillis());
+                    }
+                    return null;
+                }
+            });
+
+            Callable<Void> task = new Callable<Void>() {
+
+                public Void call() {
+                    for (int i = 0; i < 1000; i++) {
+                        gameRepository.create();
+                    }
+                    return null;
+                }
+            };
+
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(task);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            creating.set(false);
+            sweeper.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(10, gameRepository.getSize());
+        assertEquals(3990, gameRepository.getCapacityEvictions());
+    }
+
+    private void assertDoesNotExist(Long id) {
+        try {
+            this.gameRepository.retrieve(id);
+            fail();
+        } catch (GameDoesNotExistException e) {
+            // expected
+        }
+    }
+
+}
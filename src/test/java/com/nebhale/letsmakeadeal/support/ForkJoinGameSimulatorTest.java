@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.nebhale.letsmakeadeal.PlayerStrategy;
+import com.nebhale.letsmakeadeal.Simulation;
+import com.nebhale.letsmakeadeal.WinRate;
+
+public final class ForkJoinGameSimulatorTest {
+
+    private static final long GAMES = 1000000;
+
+    private final ForkJoinGameSimulator simulator = new ForkJoinGameSimulator(new GameFactory(new ThreadLocalWinnerPlacement(),
+        new StripedGameStatistics(), 3, -1));
+
+    @After
+    public void after() {
+        this.simulator.stop();
+    }
+
+    @Test
+    public void alwaysSwitch() {
+        Simulation simulation = this.simulator.simulate(GAMES, PlayerStrategy.SWITCH, 42, new AtomicBoolean());
+
+        assertEquals(GAMES, simulation.getGames());
+        assertEquals(GAMES, simulation.getSwitched().getGames());
+        assertEquals(0, simulation.getStayed().getGames());
+        assertWithin(2.0 / 3, simulation.getSwitched());
+    }
+
+    @Test
+    public void alwaysStay() {
+        Simulation simulation = this.simulator.simulate(GAMES, PlayerStrategy.STAY, 42, new AtomicBoolean());
+
+        assertEquals(0, simulation.getSwitched().getGames());
+        assertEquals(GAMES, simulation.getStayed().getGames());
+        assertWithin(1.0 / 3, simulation.getStayed());
+    }
+
+    @Test
+    public void random() {
+        Simulation simulation = this.simulator.simulate(GAMES, PlayerStrategy.RANDOM, 42, new AtomicBoolean());
+
+        assertEquals(GAMES, simulation.getGames());
+        assertWithin(0.5, new WinRate(simulation.getSwitched().getGames(), GAMES));
+        assertWithin(2.0 / 3, simulation.getSwitched());
+        assertWithin(1.0 / 3, simulation.getStayed());
+        assertWithin(0.5, simulation.getWinRate());
+    }
+
+    // With four doors and one hint, a switching player wins only when they missed the winner and then pick it from the two doors
+    // left closed
+    @Test
+    public void configuredDoors() {
+        ForkJoinGameSimulator simulator = new ForkJoinGameSimulator(new GameFactory(new ThreadLocalWinnerPlacement(),
+            new StripedGameStatistics(), 4, 1));
+        try {
+            assertWithin(3.0 / 8, simulator.simulate(GAMES, PlayerStrategy.SWITCH, 42, new AtomicBoolean()).getSwitched());
+            assertWithin(1.0 / 4, simulator.simulate(GAMES, PlayerStrategy.STAY, 42, new AtomicBoolean()).getStayed());
+        } finally {
+            simulator.stop();
+        }
+    }
+
+    @Test
+    public void reproducible() {
+        Simulation first = this.simulator.simulate(GAMES, PlayerStrategy.RANDOM, 7, new AtomicBoolean());
+        Simulation second = this.simulator.simulate(GAMES, PlayerStrategy.RANDOM, 7, new AtomicBoolean());
+
+        assertEquals(7, first.getSeed());
+        assertEquals(first.getSwitched().getGames(), second.getSwitched().getGames());
+        assertEquals(first.getSwitched().getWins(), second.getSwitched().getWins());
+        assertEquals(first.getStayed().getWins(), second.getStayed().getWins());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void cancelled() {
+        this.simulator.simulate(GAMES, PlayerStrategy.SWITCH, 42, new AtomicBoolean(true));
+    }
+
+    // A fixed seed makes this deterministic; the interval is widened so that it is not a coin flip which seeds pass
+    private static void assertWithin(double expected, WinRate winRate) {
+        double margin = winRate.getUpperBound() - winRate.getLowerBound();
+        assertTrue(winRate.getLowerBound() < winRate.getRate() && winRate.getRate() < winRate.getUpperBound());
+        assertTrue(String.format("%f is not within %f of %f", winRate.getRate(), margin, expected),
+            Math.abs(winRate.getRate() - expected) < margin);
+    }
+}
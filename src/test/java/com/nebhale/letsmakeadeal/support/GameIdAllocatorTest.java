@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+public final class GameIdAllocatorTest {
+
+    private final GameIdAllocator gameIdAllocator = new GameIdAllocator(16, new SecureRandom());
+
+    @Test
+    public void uniqueAndNonNegative() {
+        Set<Long> ids = new HashSet<Long>();
+        for (int i = 0; i < 100000; i++) {
+            long id = this.gameIdAllocator.nextId();
+            assertTrue(id >= 0);
+            assertTrue(ids.add(id));
+        }
+    }
+
+    @Test
+    public void nextIdsUniqueAndNonNegative() {
+        Set<Long> ids = new HashSet<Long>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(ids.add(this.gameIdAllocator.nextId()));
+            for (long id : this.gameIdAllocator.nextIds(i % 50)) {
+                assertTrue(id >= 0);
+                assertTrue(ids.add(id));
+            }
+        }
+    }
+
+    @Test
+    public void notSequential() {
+        long previous = this.gameIdAllocator.nextId();
+        int sequential = 0;
+        for (int i = 0; i < 1000; i++) {
+            long id = this.gameIdAllocator.nextId();
+            if (Math.abs(id - previous) < 1000) {
+                sequential++;
+            }
+            previous = id;
+        }
+
+        assertEquals(0, sequential);
+    }
+
+    @Test
+    public void uniqueAcrossThreads() throws InterruptedException {
+        final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        ids.add(GameIdAllocatorTest.this.gameIdAllocator.nextId());
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, ids.size());
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public final class GameLogTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void latestStateWins() throws IOException {
+        GameLog gameLog = open(new ConcurrentHashMap<Long, Long>());
+        gameLog.append(1L, GameLog.CREATED, 2, 0L);
+        gameLog.append(1L, GameLog.TRANSITIONED, 2, 0x8000L);
+        gameLog.append(1L, GameLog.TRANSITIONED, 2, 0x4000L);
+        gameLog.append(2L, GameLog.CREATED, 0, 0L);
+        gameLog.append(2L, GameLog.REMOVED, 0, 0L);
+        gameLog.append(2L, GameLog.TRANSITIONED, 0, 0x4000L);
+        gameLog.close();
+
+        Map<Long, Long> states = new ConcurrentHashMap<Long, Long>();
+        open(states).close();
+        assertEquals(1, states.size());
+        assertEquals(Long.valueOf(0x8000L), states.get(1L));
+    }
+
+    @Test
+    public void snapshotThenLog() throws IOException {
+        GameLog gameLog = open(new ConcurrentHashMap<Long, Long>());
+        gameLog.append(1L, GameLog.CREATED, 2, 0L);
+        gameLog.append(2L, GameLog.CREATED, 0, 0L);
+
+        GameLog.Snapshot snapshot = gameLog.snapshot();
+        snapshot.append(1L, 2, 0L);
+        snapshot.append(2L, 0, 0L);
+        assertEquals(16 + (2 * GameLog.RECORD_SIZE), snapshot.commit());
+
+        gameLog.append(1L, GameLog.TRANSITIONED, 2, 0x4000L);
+        gameLog.append(2L, GameLog.REMOVED, 0, 0L);
+        gameLog.append(3L, GameLog.CREATED, 1, 0L);
+        gameLog.close();
+
+        Map<Long, Long> states = new ConcurrentHashMap<Long, Long>();
+        open(states).close();
+        assertEquals(2, states.size());
+        assertEquals(Long.valueOf(0x4000L), states.get(1L));
+        assertEquals(Long.valueOf(0L), states.get(3L));
+    }
+
+    @Test
+    public void concurrentAppendsAcrossSegments() throws Exception {
+        final GameLog gameLog = open(new ConcurrentHashMap<Long, Long>());
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final long first = i * 10000L;
+            threads[i] = new Thread() {
+
+                public void run() {
+                    for (long id = first; id < first + 10000; id++) {
+                        gameLog.append(id, GameLog.CREATED, 1, 0L);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        gameLog.close();
+
+        Map<Long, Long> states = new ConcurrentHashMap<Long, Long>();
+        open(states).close();
+        assertEquals(40000, states.size());
+    }
+
+    @Test
+    public void unableToRoll() throws IOException {
+        GameLog gameLog = open(new ConcurrentHashMap<Long, Long>());
+
+        // A directory where the next segment belongs cannot be mapped
+        File next = this.temporaryFolder.newFolder("games-0000000000000001.log");
+        for (long id = 0; id < 65; id++) {
+            gameLog.append(id, GameLog.CREATED, 1, 0L);
+        }
+        assertTrue(gameLog.isFailing());
+        assertEquals(1, gameLog.getLostRecords());
+
+        assertTrue(next.delete());
+        gameLog.append(65L, GameLog.CREATED, 1, 0L);
+        assertFalse(gameLog.isFailing());
+        gameLog.close();
+
+        Map<Long, Long> states = new ConcurrentHashMap<Long, Long>();
+        open(states).close();
+        assertEquals(65, states.size());
+        assertFalse(states.containsKey(64L));
+    }
+
+    private GameLog open(final Map<Long, Long> states) throws IOException {
+        GameLog gameLog = new GameLog(this.temporaryFolder.getRoot(), 64 * GameLog.RECORD_SIZE);
+        gameLog.replay(4, new GameLog.Visitor() {
+
+            public void visit(long id, int winner, long state) {
+                states.put(id, state);
+            }
+        });
+        return gameLog;
+    }
+
+}
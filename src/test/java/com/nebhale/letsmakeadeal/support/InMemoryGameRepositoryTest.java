@@ -16,16 +16,22 @@
 
 package com.nebhale.letsmakeadeal.support;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Test;
 
 import com.nebhale.letsmakeadeal.Game;
 import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameStatus;
 
 public final class InMemoryGameRepositoryTest {
 
-    private final InMemoryGameRepository gameRepository = new InMemoryGameRepository();
+    private final InMemoryGameRepository gameRepository = new InMemoryGameRepository(new GameFactory(new ThreadLocalWinnerPlacement(),
+        new StripedGameStatistics(), 3, -1));
 
     @Test
     public void test() throws GameDoesNotExistException {
@@ -34,6 +40,45 @@ public final class InMemoryGameRepositoryTest {
         this.gameRepository.remove(game.getId());
     }
 
+    @Test
+    public void createMany() throws GameDoesNotExistException {
+        List<Game> games = this.gameRepository.create(100);
+        assertEquals(100, games.size());
+        for (Game game : games) {
+            assertSame(game, this.gameRepository.retrieve(game.getId()));
+        }
+    }
+
+    @Test
+    public void countByStatus() throws Exception {
+        this.gameRepository.create(3);
+        Game game = this.gameRepository.create();
+        game.select(0L);
+        this.gameRepository.remove(this.gameRepository.create().getId());
+
+        Map<GameStatus, Integer> counts = this.gameRepository.countByStatus();
+        assertEquals(Integer.valueOf(3), counts.get(GameStatus.AWAITING_INITIAL_SELECTION));
+        assertEquals(Integer.valueOf(1), counts.get(GameStatus.AWAITING_FINAL_SELECTION));
+
+        game.open(0L);
+        this.gameRepository.remove(game.getId());
+        counts = this.gameRepository.countByStatus();
+        assertEquals(Integer.valueOf(0), counts.get(GameStatus.AWAITING_FINAL_SELECTION));
+        assertEquals(Integer.valueOf(0), counts.get(GameStatus.WON));
+        assertEquals(Integer.valueOf(0), counts.get(GameStatus.LOST));
+    }
+
+    @Test
+    public void retrieveMany() throws GameDoesNotExistException {
+        Game first = this.gameRepository.create();
+        Game second = this.gameRepository.create();
+
+        List<Game> games = this.gameRepository.retrieve(new long[] { second.getId(), Long.MAX_VALUE, first.getId() });
+        assertEquals(2, games.size());
+        assertSame(second, games.get(0));
+        assertSame(first, games.get(1));
+    }
+
     @Test(expected = GameDoesNotExistException.class)
     public void retrieveDoesNotExist() throws GameDoesNotExistException {
         this.gameRepository.retrieve(Long.MAX_VALUE);
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public final class LongLongMapTest {
+
+    @Test
+    public void test() {
+        LongLongMap map = new LongLongMap(2, false);
+
+        assertEquals(LongLongMap.MISSING, map.get(1L));
+        map.put(1L, 10L);
+        map.put(2L, 20L);
+        map.put(1L, 11L);
+
+        assertEquals(2, map.size());
+        assertEquals(11L, map.get(1L));
+        assertEquals(20L, map.get(2L));
+
+        assertEquals(11L, map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertTrue(map.containsKey(2L));
+        assertEquals(LongLongMap.MISSING, map.remove(1L));
+    }
+
+    @Test
+    public void heap() {
+        exercise(new LongLongMap(16, false));
+    }
+
+    @Test
+    public void direct() {
+        exercise(new LongLongMap(16, true));
+    }
+
+    private void exercise(LongLongMap map) {
+        Map<Long, Long> expected = new HashMap<Long, Long>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100000; i++) {
+            long key = random.nextInt(5000);
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            } else {
+                Long previous = expected.remove(key);
+                assertEquals(previous == null ? LongLongMap.MISSING : previous.longValue(), map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 5000; key++) {
+            Long value = expected.get(key);
+            assertEquals(value == null ? LongLongMap.MISSING : value.longValue(), map.get(key));
+        }
+    }
+
+}
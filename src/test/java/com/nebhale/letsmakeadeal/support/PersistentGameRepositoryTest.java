@@ -0,0 +1,216 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.nebhale.letsmakeadeal.DoorStatus;
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameDoesNotExistException;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+public final class PersistentGameRepositoryTest {
+
+    // Four records per segment, so that the tests roll across several segments
+    private static final int SEGMENT_SIZE = 4 * GameLog.RECORD_SIZE;
+
+    private static final long FINISHED_TIMEOUT = 60000;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final GameFactory gameFactory = new GameFactory(new ThreadLocalWinnerPlacement(), new StripedGameStatistics(), 3, -1);
+
+    private PersistentGameRepository gameRepository;
+
+    @Before
+    public void start() throws IOException {
+        this.gameRepository = restart(null);
+    }
+
+    @After
+    public void stop() {
+        this.gameRepository.stop();
+    }
+
+    @Test
+    public void test() throws GameDoesNotExistException {
+        Game game = this.gameRepository.create();
+        assertSame(game, this.gameRepository.retrieve(game.getId()));
+        this.gameRepository.remove(game.getId());
+    }
+
+    @Test(expected = GameDoesNotExistException.class)
+    public void retrieveDoesNotExist() throws GameDoesNotExistException {
+        this.gameRepository.retrieve(Long.MAX_VALUE);
+    }
+
+    @Test(expected = GameDoesNotExistException.class)
+    public void removeDoesNotExist() throws GameDoesNotExistException {
+        this.gameRepository.remove(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void retrieveMany() throws GameDoesNotExistException {
+        Game first = this.gameRepository.create();
+        Game second = this.gameRepository.create();
+
+        List<Game> games = this.gameRepository.retrieve(new long[] { second.getId(), Long.MAX_VALUE, first.getId() });
+        assertEquals(2, games.size());
+        assertSame(second, games.get(0));
+        assertSame(first, games.get(1));
+    }
+
+    @Test
+    public void replay() throws Exception {
+        Game selected = this.gameRepository.create();
+        selected.select(0L);
+        Game removed = this.gameRepository.create();
+        this.gameRepository.remove(removed.getId());
+        List<Game> created = this.gameRepository.create(10);
+
+        this.gameRepository = restart(this.gameRepository);
+        assertEquals(11, this.gameRepository.getSize());
+
+        Game replayed = this.gameRepository.retrieve(selected.getId());
+        assertNotSame(selected, replayed);
+        assertEquals(selected.getState(), replayed.getState());
+        assertEquals(DoorStatus.SELECTED, replayed.getDoor(0L).getStatus());
+        for (Game game : created) {
+            assertEquals(GameStatus.AWAITING_INITIAL_SELECTION, this.gameRepository.retrieve(game.getId()).getStatus());
+        }
+        assertDoesNotExist(removed.getId());
+
+        // Changes to replayed games are logged as well
+        this.gameRepository.remove(created.get(0).getId());
+
+        this.gameRepository = restart(this.gameRepository);
+        assertEquals(10, this.gameRepository.getSize());
+        assertDoesNotExist(created.get(0).getId());
+    }
+
+    @Test
+    public void snapshot() throws Exception {
+        Game finished = this.gameRepository.create();
+        finished.select(0L);
+        finished.open(0L);
+        Game removed = this.gameRepository.create();
+        this.gameRepository.remove(removed.getId());
+        Game selected = this.gameRepository.create();
+        selected.select(1L);
+        Game unfinished = this.gameRepository.create();
+
+        this.gameRepository.snapshot();
+        assertEquals(1, this.gameRepository.getSegmentCount());
+        assertEquals(1, this.gameRepository.getSnapshots());
+        assertEquals(3, this.gameRepository.getLastSnapshotGames());
+        assertEquals(16 + (3 * GameLog.RECORD_SIZE), this.gameRepository.getLastSnapshotSize());
+
+        Game later = this.gameRepository.create();
+        selected.open(selected.getDoor(2L).getStatus() == DoorStatus.CLOSED ? 2L : 0L);
+
+        this.gameRepository = restart(this.gameRepository);
+        assertEquals(4, this.gameRepository.getRestoredGames());
+        assertEquals(4, this.gameRepository.getSize());
+        assertEquals(later.getState(), this.gameRepository.retrieve(later.getId()).getState());
+        assertEquals(selected.getState(), this.gameRepository.retrieve(selected.getId()).getState());
+        assertEquals(unfinished.getState(), this.gameRepository.retrieve(unfinished.getId()).getState());
+        assertEquals(finished.getState(), this.gameRepository.retrieve(finished.getId()).getState());
+        assertDoesNotExist(removed.getId());
+    }
+
+    @Test
+    public void countByStatus() throws Exception {
+        this.gameRepository.create(2);
+        this.gameRepository.create().select(0L);
+        this.gameRepository.remove(this.gameRepository.create().getId());
+
+        this.gameRepository = restart(this.gameRepository);
+        this.gameRepository.create();
+
+        Map<GameStatus, Integer> counts = this.gameRepository.countByStatus();
+        assertEquals(Integer.valueOf(3), counts.get(GameStatus.AWAITING_INITIAL_SELECTION));
+        assertEquals(Integer.valueOf(1), counts.get(GameStatus.AWAITING_FINAL_SELECTION));
+        assertEquals(Integer.valueOf(0), counts.get(GameStatus.WON));
+    }
+
+    @Test
+    public void evictFinished() throws Exception {
+        Game finished = this.gameRepository.create();
+        finished.select(0L);
+        finished.open(0L);
+        Game unfinished = this.gameRepository.create();
+
+        this.gameRepository.evict(System.currentTimeMillis());
+        assertEquals(0, this.gameRepository.getFinishedEvictions());
+
+        this.gameRepository.evict(System.currentTimeMillis() + (2 * FINISHED_TIMEOUT));
+        assertEquals(1, this.gameRepository.getFinishedEvictions());
+        assertEquals(1, this.gameRepository.getSize());
+        assertDoesNotExist(finished.getId());
+
+        this.gameRepository = restart(this.gameRepository);
+        assertDoesNotExist(finished.getId());
+        assertEquals(unfinished.getState(), this.gameRepository.retrieve(unfinished.getId()).getState());
+    }
+
+    @Test
+    public void transitionAfterRemove() throws Exception {
+        Game removed = this.gameRepository.create();
+        this.gameRepository.remove(removed.getId());
+        removed.select(0L);
+
+        // The snapshot deletes the segment holding the removal
+        this.gameRepository.snapshot();
+        this.gameRepository = restart(this.gameRepository);
+        assertDoesNotExist(removed.getId());
+    }
+
+    private PersistentGameRepository restart(PersistentGameRepository previous) throws IOException {
+        if (previous != null) {
+            previous.stop();
+        }
+
+        PersistentGameRepository gameRepository = new PersistentGameRepository(this.gameFactory, this.temporaryFolder.getRoot(),
+            SEGMENT_SIZE, 1000, Long.MAX_VALUE, FINISHED_TIMEOUT, Long.MAX_VALUE);
+        gameRepository.start();
+        return gameRepository;
+    }
+
+    private void assertDoesNotExist(Long id) {
+        try {
+            this.gameRepository.retrieve(id);
+            fail();
+        } catch (GameDoesNotExistException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.nebhale.letsmakeadeal.Outcomes;
+
+public final class StripedGameStatisticsTest {
+
+    private final StripedGameStatistics statistics = new StripedGameStatistics();
+
+    @Test
+    public void empty() {
+        Outcomes total = this.statistics.getTotal();
+        assertEquals(0, total.getGames());
+        assertEquals(0, total.getSwitchRate(), 0);
+        assertEquals(0, this.statistics.getLastMinute().getGames());
+        assertEquals(0, this.statistics.getLastHour().getGames());
+    }
+
+    @Test
+    public void outcomes() {
+        this.statistics.gameCompleted(null, true, true);
+        this.statistics.gameCompleted(null, true, true);
+        this.statistics.gameCompleted(null, true, false);
+        this.statistics.gameCompleted(null, false, true);
+        this.statistics.gameCompleted(null, false, false);
+
+        Outcomes[] windows = { this.statistics.getTotal(), this.statistics.getLastMinute(), this.statistics.getLastHour() };
+        for (Outcomes outcomes : windows) {
+            assertEquals(5, outcomes.getGames());
+            assertEquals(3, outcomes.getSwitched());
+            assertEquals(2, outcomes.getSwitchedWins());
+            assertEquals(2, outcomes.getStayed());
+            assertEquals(1, outcomes.getStayedWins());
+            assertEquals(0.6, outcomes.getSwitchRate(), 0);
+            assertEquals(2.0 / 3, outcomes.getSwitchedWinRate(), 0);
+            assertEquals(0.5, outcomes.getStayedWinRate(), 0);
+        }
+    }
+
+    @Test
+    public void concurrentCompletions() throws InterruptedException {
+        final int threads = 8;
+        final int completions = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            final boolean switched = i % 2 == 0;
+            Thread worker = new Thread() {
+
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int j = 0; j < completions; j++) {
+                        StripedGameStatisticsTest.this.statistics.gameCompleted(null, switched, j % 3 != 0);
+                    }
+                }
+            };
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Outcomes total = this.statistics.getTotal();
+        assertEquals(threads * completions, total.getGames());
+        assertEquals(threads * completions / 2, total.getSwitched());
+    }
+}
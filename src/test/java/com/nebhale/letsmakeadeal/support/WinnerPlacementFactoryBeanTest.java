@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class WinnerPlacementFactoryBeanTest {
+
+    @Test
+    public void secure() {
+        WinnerPlacement winnerPlacement = new WinnerPlacementFactoryBean("secure", 0).getObject();
+        assertTrue(winnerPlacement instanceof SecureRandomWinnerPlacement);
+        assertCoversAllDoors(winnerPlacement);
+    }
+
+    @Test
+    public void threadLocal() {
+        WinnerPlacement winnerPlacement = new WinnerPlacementFactoryBean("thread-local", 0).getObject();
+        assertTrue(winnerPlacement instanceof ThreadLocalWinnerPlacement);
+        assertCoversAllDoors(winnerPlacement);
+    }
+
+    @Test
+    public void seeded() {
+        WinnerPlacement winnerPlacement = new WinnerPlacementFactoryBean("seeded", 42).getObject();
+        assertTrue(winnerPlacement instanceof SeededWinnerPlacement);
+        assertCoversAllDoors(winnerPlacement);
+
+        WinnerPlacement first = new SeededWinnerPlacement(42);
+        WinnerPlacement second = new SeededWinnerPlacement(42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.place(3), second.place(3));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown() {
+        new WinnerPlacementFactoryBean("foo", 0);
+    }
+
+    private void assertCoversAllDoors(WinnerPlacement winnerPlacement) {
+        int[] counts = new int[3];
+        for (int i = 0; i < 3000; i++) {
+            counts[winnerPlacement.place(3)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 800);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.nebhale.letsmakeadeal.Door;
+import com.nebhale.letsmakeadeal.DoorContent;
+import com.nebhale.letsmakeadeal.Game;
+import com.nebhale.letsmakeadeal.GameListener;
+
+public final class GameWatchersTest {
+
+    private final GameWatchers gameWatchers = new GameWatchers();
+
+    private final Game game;
+    {
+        Set<Door> doors = new HashSet<Door>();
+        doors.add(new Door(0L, DoorContent.SMALL_FURRY_ANIMAL));
+        doors.add(new Door(1L, DoorContent.SMALL_FURRY_ANIMAL));
+        doors.add(new Door(2L, DoorContent.JUERGEN));
+        game = new Game(0L, doors);
+    }
+
+    private final AtomicInteger changes = new AtomicInteger();
+
+    private final GameListener watcher = new GameListener() {
+
+        public void gameChanged(Game game, long previous, long next) {
+            GameWatchersTest.this.changes.incrementAndGet();
+        }
+    };
+
+    @Test
+    public void notifiedOnce() throws Exception {
+        this.gameWatchers.watch(this.game, this.game.getState(), this.watcher);
+        this.gameWatchers.watch(this.game, this.game.getState(), this.watcher);
+        assertEquals(2, this.gameWatchers.size());
+        assertEquals(0, this.changes.get());
+
+        this.game.select(0L);
+        assertEquals(2, this.changes.get());
+        assertEquals(0, this.gameWatchers.size());
+
+        this.game.open(2L);
+        assertEquals(2, this.changes.get());
+    }
+
+    @Test
+    public void alreadyChanged() throws Exception {
+        long state = this.game.getState();
+        this.game.select(0L);
+
+        this.gameWatchers.watch(this.game, state, this.watcher);
+        assertEquals(1, this.changes.get());
+        assertEquals(0, this.gameWatchers.size());
+    }
+
+    @Test
+    public void unwatch() throws Exception {
+        this.gameWatchers.watch(this.game, this.game.getState(), this.watcher);
+        this.gameWatchers.unwatch(this.game, this.watcher);
+        assertEquals(0, this.gameWatchers.size());
+
+        this.game.select(0L);
+        assertEquals(0, this.changes.get());
+    }
+
+}
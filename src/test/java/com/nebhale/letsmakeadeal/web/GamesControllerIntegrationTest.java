@@ -16,7 +16,9 @@
 
 package com.nebhale.letsmakeadeal.web;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.status;
@@ -33,7 +35,11 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.mock.servlet.MockMvc;
+import org.springframework.test.web.mock.servlet.MvcResult;
+import org.springframework.test.web.mock.servlet.RequestBuilder;
+import org.springframework.test.web.mock.servlet.ResultActions;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 
 import com.jayway.jsonpath.JsonPath;
 
@@ -54,23 +60,23 @@ public final class GamesControllerIntegrationTest {
 
     @Test
     public void playAGame() throws Exception {
-        String gameLocation = this.mockMvc.perform(post("/games")) //
+        String gameLocation = perform(post("/games")) //
         .andExpect(status().isCreated()) //
         .andReturn().getResponse().getHeader("Location");
 
         String doorsLocation = getLinkedLocation(gameLocation, "doors");
-        this.mockMvc.perform(post(getDoorLocation(doorsLocation, 1)) //
+        perform(post(getDoorLocation(doorsLocation, 1)) //
         .contentType(MediaType.APPLICATION_JSON) //
         .content(getBytes("{ \"status\": \"SELECTED\"}"))) //
         .andExpect(status().isOk());
 
         if ("CLOSED".equals(getDoorStatus(doorsLocation, 0))) {
-            this.mockMvc.perform(post(getDoorLocation(doorsLocation, 0)) //
+            perform(post(getDoorLocation(doorsLocation, 0)) //
             .contentType(MediaType.APPLICATION_JSON) //
             .content(getBytes("{ \"status\": \"OPEN\"}"))) //
             .andExpect(status().isOk());
         } else {
-            this.mockMvc.perform(post(getDoorLocation(doorsLocation, 2)) //
+            perform(post(getDoorLocation(doorsLocation, 2)) //
             .contentType(MediaType.APPLICATION_JSON) //
             .content(getBytes("{ \"status\": \"OPEN\"}"))) //
             .andExpect(status().isOk());
@@ -78,28 +84,47 @@ public final class GamesControllerIntegrationTest {
 
         String gameStatus = getGameStatus(gameLocation);
         assertTrue("WON".equals(gameStatus) || "LOST".equals(gameStatus));
+
+        String json = perform(get("/stats")).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertTrue(JsonPath.<Integer> read(json, "$.total.games") >= 1);
+
+        String metrics = perform(get("/metrics")).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertTrue(metrics.contains("games_request_duration_seconds_count{handler=\"createGame\"} "));
+        assertFalse(metrics.contains("games_request_duration_seconds_count{handler=\"createGame\"} 0\n"));
     }
 
     private String getLinkedLocation(String location, String rel) throws Exception {
-        String json = this.mockMvc.perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        String json = perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
         return JsonPath.read(json, String.format("$.links[?(@.rel==%s)].href[0]", rel));
     }
 
     private String getDoorLocation(String location, int index) throws Exception {
-        String json = this.mockMvc.perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        String json = perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
         return JsonPath.read(json, String.format("$.doors[%d].links[?(@.rel==self)].href[0]", index));
     }
 
     private String getDoorStatus(String location, int index) throws Exception {
-        String json = this.mockMvc.perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        String json = perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
         return JsonPath.read(json, String.format("$.doors[%d].status", index));
     }
 
     private String getGameStatus(String location) throws Exception {
-        String json = this.mockMvc.perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        String json = perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
         return JsonPath.read(json, "$.status");
     }
 
+    private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        ResultActions resultActions = this.mockMvc.perform(requestBuilder);
+
+        MvcResult mvcResult = resultActions.andReturn();
+        if (WebAsyncUtils.getAsyncManager(mvcResult.getRequest()).isConcurrentHandlingStarted()) {
+            mvcResult.getAsyncResult();
+            return this.mockMvc.perform(asyncDispatch(mvcResult));
+        }
+
+        return resultActions;
+    }
+
     private byte[] getBytes(String s) throws UnsupportedEncodingException {
         return s.getBytes("UTF8");
     }
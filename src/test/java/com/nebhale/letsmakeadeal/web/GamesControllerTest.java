@@ -19,32 +19,50 @@ package com.nebhale.letsmakeadeal.web;
 import static com.jayway.jsonassert.JsonAssert.collectionWithSize;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.xpath;
 import static org.springframework.test.web.mock.servlet.setup.MockMvcBuilders.standaloneSetup;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.Test;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
 import org.springframework.test.web.mock.servlet.MockMvc;
+import org.springframework.test.web.mock.servlet.MvcResult;
+import org.springframework.test.web.mock.servlet.RequestBuilder;
+import org.springframework.test.web.mock.servlet.ResultActions;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 
 import com.nebhale.letsmakeadeal.Door;
 import com.nebhale.letsmakeadeal.DoorContent;
+import com.nebhale.letsmakeadeal.DoorStatus;
 import com.nebhale.letsmakeadeal.Game;
 import com.nebhale.letsmakeadeal.GameDoesNotExistException;
 import com.nebhale.letsmakeadeal.GameRepository;
+import com.nebhale.letsmakeadeal.GameStatus;
 
 public final class GamesControllerTest {
 
@@ -52,6 +70,8 @@ public final class GamesControllerTest {
 
     private static final String DOORS_LOCATION = GAME_LOCATION + "/doors";
 
+    private static final String EVENTS_LOCATION = GAME_LOCATION + "/events";
+
     private static final String DOOR_LOCATION = DOORS_LOCATION + "/1";
 
     private final Game game;
@@ -65,50 +85,217 @@ public final class GamesControllerTest {
 
     private final GameRepository gameRepository = mock(GameRepository.class);
 
-    private final MockMvc mockMvc = standaloneSetup(
-        new GamesController(gameRepository, new GameResourceAssembler(), new DoorsResourceAssembler(new DoorResourceAssembler()))) //
+    private final RepresentationCache representationCache = new RepresentationCache(new RepresentationWriter(), 16);
+
+    private final Metrics metrics = new Metrics(gameRepository);
+
+    private final MockMvc mockMvc = standaloneSetup(new GamesController(gameRepository, new GameWatchers(), new RequestExecutor(0, 0),
+        new HistoryResourceAssembler(), metrics, 1000, 10)) //
+    .addInterceptors(new MetricsInterceptor(metrics)) //
+    .setMessageConverters(new RepresentationHttpMessageConverter(representationCache), new GameStatusesHttpMessageConverter(),
+        new StringHttpMessageConverter(), new MappingJacksonHttpMessageConverter()) //
     .build();
 
     @Test
     public void createGame() throws Exception {
         when(this.gameRepository.create()).thenReturn(game);
 
-        this.mockMvc.perform(post("/games")) //
+        perform(post("/games")) //
         .andExpect(status().isCreated()) //
         .andExpect(header().string("Location", "http://localhost/games/0"));
     }
 
+    @Test
+    public void createGames() throws Exception {
+        Game other = new Game(1L, new HashSet<Door>());
+        when(this.gameRepository.create(2)).thenReturn(Arrays.asList(game, other));
+
+        perform(post("/games").param("count", "2")) //
+        .andExpect(status().isCreated()) //
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON)) //
+        .andExpect(jsonPath("$", collectionWithSize(equalTo(2)))) //
+        .andExpect(jsonPath("$[0]", equalTo(GAME_LOCATION))) //
+        .andExpect(jsonPath("$[1]", equalTo("http://localhost/games/1")));
+    }
+
+    @Test
+    public void createGamesIllegalCount() throws Exception {
+        this.mockMvc.perform(post("/games").param("count", "11")) //
+        .andExpect(status().isBadRequest());
+
+        this.mockMvc.perform(post("/games").param("count", "0")) //
+        .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void showGames() throws Exception {
+        Game other = new Game(1L, new HashSet<Door>());
+        when(this.gameRepository.retrieve(new long[] { 0L, 1L, 2L })).thenReturn(Arrays.asList(game, other));
+
+        perform(get("/games").param("ids", "0,1,2").accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON)) //
+        .andExpect(jsonPath("$", collectionWithSize(equalTo(2)))) //
+        .andExpect(jsonPath("$[0].id", equalTo(0))) //
+        .andExpect(jsonPath("$[0].status", equalTo("AWAITING_INITIAL_SELECTION"))) //
+        .andExpect(jsonPath("$[0].links").doesNotExist()) //
+        .andExpect(jsonPath("$[1].id", equalTo(1)));
+    }
+
+    @Test
+    public void showGamesWithLinks() throws Exception {
+        when(this.gameRepository.retrieve(new long[] { 0L })).thenReturn(Arrays.asList(game));
+
+        perform(get("/games").param("ids", "0").param("links", "true").accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$[0].links[?(@.rel==self)].href[0]").value(GAME_LOCATION)) //
+        .andExpect(jsonPath("$[0].links[?(@.rel==doors)].href[0]").value(DOORS_LOCATION));
+    }
+
+    @Test
+    public void showGamesTooMany() throws Exception {
+        this.mockMvc.perform(get("/games").param("ids", "0,1,2,3,4,5,6,7,8,9,10")) //
+        .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void createGameRejected() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        RequestExecutor requestExecutor = new RequestExecutor(1, 1);
+        Callable<Void> blocker = new Callable<Void>() {
+
+            public Void call() throws InterruptedException {
+                release.await();
+                return null;
+            }
+        };
+
+        try {
+            requestExecutor.submit(blocker);
+            requestExecutor.submit(blocker);
+
+            GamesController gamesController = new GamesController(this.gameRepository, new GameWatchers(), requestExecutor,
+                new HistoryResourceAssembler(), this.metrics, 1000, 10);
+
+            standaloneSetup(gamesController).build() //
+            .perform(post("/games")) //
+            .andExpect(status().isServiceUnavailable()) //
+            .andExpect(header().string("Retry-After", "1")) //
+            .andExpect(content().string("More than 1 requests are waiting to be processed"));
+        } finally {
+            release.countDown();
+            requestExecutor.stop();
+        }
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void showGame() throws Exception {
         when(this.gameRepository.retrieve(0L)).thenReturn(game);
 
-        this.mockMvc.perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_JSON)) //
         .andExpect(status().isOk()) //
         .andExpect(jsonPath("$.status").value("AWAITING_INITIAL_SELECTION")) //
-        .andExpect(jsonPath("$.links").value(collectionWithSize(equalTo(2)))) //
+        .andExpect(jsonPath("$.links").value(collectionWithSize(equalTo(3)))) //
         .andExpect(jsonPath("$.links[?(@.rel==self)].href[0]").value(GAME_LOCATION)) //
-        .andExpect(jsonPath("$.links[?(@.rel==doors)].href[0]").value(GAME_LOCATION + "/doors"));
+        .andExpect(jsonPath("$.links[?(@.rel==doors)].href[0]").value(GAME_LOCATION + "/doors")) //
+        .andExpect(jsonPath("$.links[?(@.rel==history)].href[0]").value(GAME_LOCATION + "/history"));
+    }
+
+    @Test
+    public void showGameNotModified() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        String eTag = perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(header().string("Vary", "Accept")) //
+        .andReturn().getResponse().getHeader("ETag");
+
+        perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_JSON).header("If-None-Match", eTag)) //
+        .andExpect(status().isNotModified()) //
+        .andExpect(header().string("ETag", eTag)) //
+        .andExpect(content().string(""));
+
+        perform(get(GAME_LOCATION).accept(MediaType.TEXT_XML).header("If-None-Match", eTag)) //
+        .andExpect(status().isOk());
+
+        game.select(1L);
+
+        perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_JSON).header("If-None-Match", eTag)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.status").value("AWAITING_FINAL_SELECTION"));
+    }
+
+    @Test
+    public void showDoorsNotModified() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        String eTag = perform(get(DOORS_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andReturn().getResponse().getHeader("ETag");
+
+        perform(get(DOORS_LOCATION).accept(MediaType.APPLICATION_JSON).header("If-None-Match", "\"other\", " + eTag)) //
+        .andExpect(status().isNotModified());
     }
 
     @Test
     public void showGameGameDoesNotExist() throws Exception {
         when(this.gameRepository.retrieve(0L)).thenThrow(new GameDoesNotExistException(0L));
 
-        this.mockMvc.perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_JSON)) //
         .andExpect(status().isNotFound()) //
         .andExpect(content().string("Game '0' does not exist"));
     }
 
     @Test
     public void showGameInvalidAccept() throws Exception {
-        this.mockMvc.perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_OCTET_STREAM)) //
+        perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_OCTET_STREAM)) //
         .andExpect(status().isNotAcceptable());
     }
 
+    @Test
+    public void watchGame() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        MvcResult mvcResult = this.mockMvc.perform(get(EVENTS_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(request().asyncStarted()) //
+        .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(mvcResult)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.status").value("AWAITING_INITIAL_SELECTION"));
+    }
+
+    @Test
+    public void watchGameUntilChanged() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        String eTag = perform(get(GAME_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        .andReturn().getResponse().getHeader("ETag");
+
+        MvcResult mvcResult = this.mockMvc.perform(get(EVENTS_LOCATION).accept(MediaType.APPLICATION_JSON).header("If-None-Match", eTag)) //
+        .andExpect(request().asyncStarted()) //
+        .andReturn();
+
+        game.select(1L);
+
+        this.mockMvc.perform(asyncDispatch(mvcResult)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.status").value("AWAITING_FINAL_SELECTION"));
+    }
+
+    @Test
+    public void watchGameGameDoesNotExist() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenThrow(new GameDoesNotExistException(0L));
+
+        perform(get(EVENTS_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isNotFound()) //
+        .andExpect(content().string("Game '0' does not exist"));
+    }
+
     @Test
     public void destroyGame() throws Exception {
-        this.mockMvc.perform(delete(GAME_LOCATION)) //
+        perform(delete(GAME_LOCATION)) //
         .andExpect(status().isOk());
 
         verify(this.gameRepository).remove(0L);
@@ -118,7 +305,7 @@ public final class GamesControllerTest {
     public void destroyGameGameDoesNotExist() throws Exception {
         doThrow(new GameDoesNotExistException(0L)).when(this.gameRepository).remove(0L);
 
-        this.mockMvc.perform(delete(GAME_LOCATION)) //
+        perform(delete(GAME_LOCATION)) //
         .andExpect(status().isNotFound()) //
         .andExpect(content().string("Game '0' does not exist"));
     }
@@ -128,7 +315,7 @@ public final class GamesControllerTest {
     public void showDoors() throws Exception {
         when(this.gameRepository.retrieve(0L)).thenReturn(game);
 
-        this.mockMvc.perform(get(DOORS_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        perform(get(DOORS_LOCATION).accept(MediaType.APPLICATION_JSON)) //
         .andExpect(status().isOk()) //
         .andExpect(jsonPath("$.doors").isArray()) //
         .andExpect(jsonPath("$.doors").value(collectionWithSize(equalTo(3)))) //
@@ -140,11 +327,127 @@ public final class GamesControllerTest {
         .andExpect(jsonPath("$.links[?(@.rel==self)].href[0]").value(DOORS_LOCATION));
     }
 
+    @Test
+    public void showDoorsPage() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        perform(get(DOORS_LOCATION).param("page", "1").param("size", "2").accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.doors").value(collectionWithSize(equalTo(1)))) //
+        .andExpect(jsonPath("$.doors[0].links[?(@.rel==self)].href[0]").value(DOORS_LOCATION + "/3")) //
+        .andExpect(jsonPath("$.links[?(@.rel==self)].href[0]").value(DOORS_LOCATION + "?page=1&size=2")) //
+        .andExpect(jsonPath("$.links[?(@.rel==previous)].href[0]").value(DOORS_LOCATION + "?page=0&size=2")) //
+        .andExpect(jsonPath("$.links[?(@.rel==next)]").value(collectionWithSize(equalTo(0))));
+    }
+
+    @Test
+    public void showDoorsIllegalSize() throws Exception {
+        this.mockMvc.perform(get(DOORS_LOCATION).param("size", "101")) //
+        .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void metrics() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+        when(this.gameRepository.retrieve(1L)).thenThrow(new GameDoesNotExistException(1L));
+
+        perform(get(GAME_LOCATION)).andExpect(status().isOk());
+        perform(get("/games/1")).andExpect(status().isNotFound());
+
+        String metrics = this.metrics.scrape();
+        assertTrue(metrics.contains("games_request_duration_seconds_count{handler=\"showGame\"} 2\n"));
+        assertTrue(metrics.contains("games_request_duration_seconds_count{handler=\"showDoors\"} 0\n"));
+        assertTrue(metrics.contains("games_repository_operation_duration_seconds_count{operation=\"retrieve\"} 2\n"));
+        assertTrue(metrics.contains("games_request_errors_total{status=\"404\"} 1\n"));
+        assertTrue(metrics.contains("games_request_errors_total{status=\"409\"} 0\n"));
+    }
+
+    @Test
+    public void showGameBinary() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        byte[] body = perform(get(GAME_LOCATION).accept(BinaryRepresentation.MEDIA_TYPE)) //
+        .andExpect(status().isOk()) //
+        .andExpect(content().contentType(BinaryRepresentation.MEDIA_TYPE)) //
+        .andExpect(header().string("ETag", String.format("\"%x-vnd.nebhale.lets-make-a-deal\"", game.getState()))) //
+        .andReturn().getResponse().getContentAsByteArray();
+
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        assertEquals(BinaryRepresentation.VERSION, buffer.get());
+        assertEquals(GameStatus.AWAITING_INITIAL_SELECTION.ordinal(), buffer.get());
+        assertEquals(0L, buffer.getLong());
+        assertEquals(3, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void showDoorsBinary() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+        game.select(1L);
+
+        byte[] body = perform(get(DOORS_LOCATION).param("page", "0").param("size", "2").accept(BinaryRepresentation.MEDIA_TYPE)) //
+        .andExpect(status().isOk()) //
+        .andReturn().getResponse().getContentAsByteArray();
+
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        buffer.position(2);
+        assertEquals(0L, buffer.getLong());
+        assertEquals(3, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(2, buffer.getInt());
+
+        assertEquals(1L, buffer.getLong());
+        assertEquals(DoorStatus.SELECTED.ordinal(), buffer.get());
+        assertEquals(DoorContent.UNKNOWN.ordinal(), buffer.get());
+        assertEquals(2L, buffer.getLong());
+        assertEquals(DoorStatus.OPEN.ordinal(), buffer.get());
+        assertEquals(DoorContent.SMALL_FURRY_ANIMAL.ordinal(), buffer.get());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void modifyDoorBinary() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        perform(
+            post(DOOR_LOCATION).contentType(MediaType.APPLICATION_JSON).accept(BinaryRepresentation.MEDIA_TYPE).content(
+                getBytes("{ \"status\" : \"SELECTED\" }"))) //
+        .andExpect(status().isOk());
+    }
+
+    @Test
+    public void showGameXml() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        perform(get(GAME_LOCATION).accept(MediaType.TEXT_XML)) //
+        .andExpect(status().isOk()) //
+        .andExpect(content().contentType(MediaType.TEXT_XML)) //
+        .andExpect(xpath("/game/@status").string("AWAITING_INITIAL_SELECTION"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void showDoorsAfterTransition() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        perform(get(DOORS_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(jsonPath("$.doors[*].status").value(hasItems("CLOSED")));
+
+        game.select(1L);
+
+        perform(get(DOORS_LOCATION).accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.doors[*].status").value(hasItems("SELECTED", "OPEN", "CLOSED"))) //
+        .andExpect(jsonPath("$.doors[*].content").value(hasItems("UNKNOWN", "SMALL_FURRY_ANIMAL")));
+    }
+
     @Test
     public void showDoorsGameDoesNotExist() throws Exception {
         when(this.gameRepository.retrieve(0L)).thenThrow(new GameDoesNotExistException(0L));
 
-        this.mockMvc.perform(get(DOORS_LOCATION)) //
+        perform(get(DOORS_LOCATION)) //
         .andExpect(status().isNotFound()) //
         .andExpect(content().string("Game '0' does not exist"));
     }
@@ -153,7 +456,7 @@ public final class GamesControllerTest {
     public void modifyDoorSelect() throws Exception {
         when(this.gameRepository.retrieve(0L)).thenReturn(game);
 
-        this.mockMvc.perform(
+        perform(
             post(DOOR_LOCATION).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(
                 getBytes("{ \"status\" : \"SELECTED\" }"))) //
         .andExpect(status().isOk());
@@ -164,7 +467,7 @@ public final class GamesControllerTest {
         when(this.gameRepository.retrieve(0L)).thenReturn(game);
         game.select(1L);
 
-        this.mockMvc.perform(
+        perform(
             post(DOOR_LOCATION).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(
                 getBytes("{ \"status\" : \"OPEN\" }"))) //
         .andExpect(status().isOk());
@@ -174,16 +477,93 @@ public final class GamesControllerTest {
     public void modifyDoorClosed() throws Exception {
         when(this.gameRepository.retrieve(0L)).thenReturn(game);
 
-        this.mockMvc.perform(
+        perform(
             post(DOOR_LOCATION).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(
                 getBytes("{ \"status\" : \"CLOSED\" }"))) //
         .andExpect(status().isConflict()) //
         .andExpect(content().string("It is illegal to transition door '1' in game '0' to 'CLOSED'"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void showHistory() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+        game.select(1L);
+        game.open(3L);
+
+        perform(get(GAME_LOCATION + "/history").accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.history", collectionWithSize(equalTo(6)))) //
+        .andExpect(jsonPath("$.history[0].game").value(GAME_LOCATION)) //
+        .andExpect(jsonPath("$.history[0].status").value("AWAITING_INITIAL_SELECTION")) //
+        .andExpect(jsonPath("$.history[1].door").value(DOOR_LOCATION)) //
+        .andExpect(jsonPath("$.history[1].status").value("SELECTED")) //
+        .andExpect(jsonPath("$.history[2].door").value(DOORS_LOCATION + "/2")) //
+        .andExpect(jsonPath("$.history[2].status").value("OPEN")) //
+        .andExpect(jsonPath("$.history[4].door").value(DOORS_LOCATION + "/3")) //
+        .andExpect(jsonPath("$.history[5].status").value("WON")) //
+        .andExpect(jsonPath("$.history[5].timestamp").value(game.getHistory().get(5).getTimestamp())) //
+        .andExpect(jsonPath("$.links").value(collectionWithSize(equalTo(1))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void showHistoryPage() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+        game.select(1L);
+
+        perform(get(GAME_LOCATION + "/history").param("page", "1").param("size", "2").accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.history", collectionWithSize(equalTo(2)))) //
+        .andExpect(jsonPath("$.history[0].door").value(DOORS_LOCATION + "/2")) //
+        .andExpect(jsonPath("$.links[?(@.rel==self)].href[0]").value(GAME_LOCATION + "/history?page=1&size=2")) //
+        .andExpect(jsonPath("$.links[?(@.rel==previous)].href[0]").value(GAME_LOCATION + "/history?page=0&size=2")) //
+        .andExpect(jsonPath("$.links[?(@.rel==next)]").value(collectionWithSize(equalTo(0))));
+    }
+
+    @Test
+    public void showHistoryIllegalSize() throws Exception {
+        this.mockMvc.perform(get(GAME_LOCATION + "/history").param("size", "0")) //
+        .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void playGame() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        perform(
+            post(GAME_LOCATION + "/play").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(
+                getBytes("[ { \"door\" : 1, \"status\" : \"SELECTED\" }, { \"door\" : 3, \"status\" : \"OPEN\" } ]"))) //
+        .andExpect(status().isOk()) //
+        .andExpect(header().string("ETag", String.format("\"%x-json\"", game.getState()))) //
+        .andExpect(jsonPath("$.status").value("WON"));
+    }
+
+    @Test
+    public void playGameIllegalTransition() throws Exception {
+        when(this.gameRepository.retrieve(0L)).thenReturn(game);
+
+        perform(
+            post(GAME_LOCATION + "/play").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(
+                getBytes("[ { \"door\" : 1, \"status\" : \"SELECTED\" }, { \"door\" : 2, \"status\" : \"OPEN\" } ]"))) //
+        .andExpect(status().isConflict()) //
+        .andExpect(content().string("It is illegal to transition door '2' in game '0' from 'OPEN' to 'OPEN'"));
+
+        assertEquals(GameStatus.AWAITING_INITIAL_SELECTION, game.getStatus());
+    }
+
+    @Test
+    public void playGameMissingKey() throws Exception {
+        perform(
+            post(GAME_LOCATION + "/play").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(
+                getBytes("[ { \"status\" : \"SELECTED\" } ]"))) //
+        .andExpect(status().isBadRequest()) //
+        .andExpect(content().string("Payload is missing key 'door'"));
+    }
+
     @Test
     public void modifyDoorMissingKey() throws Exception {
-        this.mockMvc.perform(post(DOOR_LOCATION).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(getBytes("{}"))) //
+        perform(post(DOOR_LOCATION).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(getBytes("{}"))) //
         .andExpect(status().isBadRequest()) //
         .andExpect(content().string("Payload is missing key 'status'"));
     }
@@ -192,7 +572,7 @@ public final class GamesControllerTest {
     public void modifyDoorGameDoesNotExist() throws Exception {
         when(this.gameRepository.retrieve(0L)).thenThrow(new GameDoesNotExistException(0L));
 
-        this.mockMvc.perform(
+        perform(
             post(DOOR_LOCATION).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(
                 getBytes("{ \"status\" : \"SELECTED\" }"))) //
         .andExpect(status().isNotFound()) //
@@ -203,7 +583,7 @@ public final class GamesControllerTest {
     public void modifyDoorDoorDoesNotExist() throws Exception {
         when(this.gameRepository.retrieve(0L)).thenReturn(game);
 
-        this.mockMvc.perform(
+        perform(
             post("http://localhost/games/0/doors/4").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(
                 getBytes("{ \"status\" : \"SELECTED\" }"))) //
         .andExpect(status().isNotFound()) //
@@ -212,12 +592,24 @@ public final class GamesControllerTest {
 
     @Test
     public void modifyDoorIllegalArgumentException() throws Exception {
-        this.mockMvc.perform(
+        perform(
             post(DOOR_LOCATION).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(getBytes("{ \"status\": \"foo\"}"))) //
         .andExpect(status().isBadRequest()) //
         .andExpect(content().string("'foo' is an illegal value for key 'status'"));
     }
 
+    private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        ResultActions resultActions = this.mockMvc.perform(requestBuilder);
+
+        MvcResult mvcResult = resultActions.andReturn();
+        if (WebAsyncUtils.getAsyncManager(mvcResult.getRequest()).isConcurrentHandlingStarted()) {
+            mvcResult.getAsyncResult();
+            return this.mockMvc.perform(asyncDispatch(mvcResult));
+        }
+
+        return resultActions;
+    }
+
     private byte[] getBytes(String s) throws UnsupportedEncodingException {
         return s.getBytes("UTF8");
     }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+public final class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void buckets() {
+        this.histogram.record(0);
+        this.histogram.record(1000);
+        this.histogram.record(1001);
+        this.histogram.record(2000);
+        this.histogram.record(1000000);
+        this.histogram.record(Long.MAX_VALUE / 2);
+
+        long[] counts = this.histogram.getBucketCounts();
+        assertEquals(2, counts[0]);
+        assertEquals(2, counts[1]);
+        assertEquals(1, counts[10]);
+        assertEquals(1, counts[LatencyHistogram.BUCKETS - 1]);
+        assertEquals(Long.MAX_VALUE / 2 + 1004001, this.histogram.getSum());
+    }
+
+    @Test
+    public void upperBounds() {
+        assertEquals(0, new BigDecimal("0.000001").compareTo(LatencyHistogram.getUpperBound(0)));
+        assertEquals(0, new BigDecimal("0.001024").compareTo(LatencyHistogram.getUpperBound(10)));
+        assertEquals(0, new BigDecimal("16.777216").compareTo(LatencyHistogram.getUpperBound(LatencyHistogram.BUCKETS - 2)));
+        assertNull(LatencyHistogram.getUpperBound(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void concurrentRecording() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        LatencyHistogramTest.this.histogram.record(500);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, this.histogram.getBucketCounts()[0]);
+        assertEquals(20000000, this.histogram.getSum());
+    }
+}
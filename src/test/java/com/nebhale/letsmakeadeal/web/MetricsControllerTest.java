@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.mock.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.mock.servlet.MockMvc;
+
+import com.nebhale.letsmakeadeal.GameRepository;
+import com.nebhale.letsmakeadeal.GameStatus;
+
+public final class MetricsControllerTest {
+
+    private final GameRepository gameRepository = mock(GameRepository.class);
+
+    private final Metrics metrics = new Metrics(gameRepository);
+
+    private final MockMvc mockMvc = standaloneSetup(new MetricsController(metrics)).build();
+
+    @Before
+    public void before() {
+        Map<GameStatus, Integer> counts = new EnumMap<GameStatus, Integer>(GameStatus.class);
+        counts.put(GameStatus.AWAITING_INITIAL_SELECTION, 3);
+        counts.put(GameStatus.AWAITING_FINAL_SELECTION, 2);
+        counts.put(GameStatus.WON, 1);
+        counts.put(GameStatus.LOST, 0);
+        when(this.gameRepository.countByStatus()).thenReturn(counts);
+    }
+
+    @Test
+    public void showMetrics() throws Exception {
+        LatencyHistogram histogram = this.metrics.getRequestHistogram("showGame");
+        histogram.record(1500);
+        histogram.record(3000000);
+        this.metrics.countError(HttpStatus.CONFLICT);
+
+        this.mockMvc.perform(get("/metrics")) //
+        .andExpect(status().isOk()) //
+        .andExpect(content().contentType("text/plain;version=0.0.4;charset=utf-8")) //
+        .andExpect(content().string(containsString("# TYPE games_request_duration_seconds histogram\n"))) //
+        .andExpect(content().string(containsString("games_request_duration_seconds_bucket{handler=\"showGame\",le=\"0.000001\"} 0\n"))) //
+        .andExpect(content().string(containsString("games_request_duration_seconds_bucket{handler=\"showGame\",le=\"0.000002\"} 1\n"))) //
+        .andExpect(content().string(containsString("games_request_duration_seconds_bucket{handler=\"showGame\",le=\"0.004096\"} 2\n"))) //
+        .andExpect(content().string(containsString("games_request_duration_seconds_bucket{handler=\"showGame\",le=\"+Inf\"} 2\n"))) //
+        .andExpect(content().string(containsString("games_request_duration_seconds_sum{handler=\"showGame\"} 0.003001500\n"))) //
+        .andExpect(content().string(containsString("games_request_duration_seconds_count{handler=\"showGame\"} 2\n"))) //
+        .andExpect(content().string(containsString("games_request_errors_total{status=\"409\"} 1\n"))) //
+        .andExpect(content().string(containsString("games_live{status=\"AWAITING_INITIAL_SELECTION\"} 3\n"))) //
+        .andExpect(content().string(containsString("games_live{status=\"WON\"} 1\n")));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import com.nebhale.letsmakeadeal.Door;
+import com.nebhale.letsmakeadeal.DoorContent;
+import com.nebhale.letsmakeadeal.Game;
+
+public final class RepresentationCacheTest {
+
+    private static final String GAMES_URI = "http://localhost/games";
+
+    private final RepresentationCache representationCache = new RepresentationCache(new RepresentationWriter(), 16);
+
+    @Test
+    public void sameStateSharesTemplate() throws Exception {
+        String first = render(Representation.Type.DOORS, createGame(1L), MediaType.APPLICATION_JSON);
+        String second = render(Representation.Type.DOORS, createGame(22L), MediaType.APPLICATION_JSON);
+
+        assertEquals(1, this.representationCache.size());
+        assertEquals(first.replace(GAMES_URI + "/1/", GAMES_URI + "/22/"), second);
+        assertEquals(second, render(Representation.Type.DOORS, createGame(22L), MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void stateTypeAndMediaTypeAreDistinct() throws Exception {
+        Game game = createGame(1L);
+        render(Representation.Type.GAME, game, MediaType.APPLICATION_JSON);
+        render(Representation.Type.GAME, game, MediaType.TEXT_XML);
+        render(Representation.Type.DOORS, game, MediaType.APPLICATION_JSON);
+        assertEquals(3, this.representationCache.size());
+
+        game.select(0L);
+        assertTrue(render(Representation.Type.GAME, game, MediaType.APPLICATION_JSON).contains("AWAITING_FINAL_SELECTION"));
+        assertEquals(4, this.representationCache.size());
+    }
+
+    @Test
+    public void hostsShareTemplate() throws Exception {
+        Game game = createGame(1L);
+        String first = render(new Representation(Representation.Type.GAME, game, game.getState(), GAMES_URI), MediaType.APPLICATION_JSON);
+        String second = render(new Representation(Representation.Type.GAME, game, game.getState(), "https://example.com:8443/games"),
+            MediaType.APPLICATION_JSON);
+
+        assertEquals(1, this.representationCache.size());
+        assertEquals(first.replace(GAMES_URI, "https://example.com:8443/games"), second);
+    }
+
+    @Test
+    public void escapedHostsAreNotTemplated() throws Exception {
+        Game game = createGame(1L);
+        Representation representation = new Representation(Representation.Type.GAME, game, game.getState(), "http://a&b/games");
+
+        assertTrue(render(representation, MediaType.TEXT_XML).contains("http://a&amp;b/games/1/doors"));
+        assertEquals(0, this.representationCache.size());
+    }
+
+    @Test
+    public void maxEntries() throws Exception {
+        RepresentationCache representationCache = new RepresentationCache(new RepresentationWriter(), 2);
+        Game game = createGame(1L);
+        Representation gameRepresentation = new Representation(Representation.Type.GAME, game, game.getState(), GAMES_URI);
+        Representation doorsRepresentation = new Representation(Representation.Type.DOORS, game, game.getState(), GAMES_URI);
+        Representation pageRepresentation = new Representation(Representation.Type.DOORS, game, game.getState(), GAMES_URI, 0, 2);
+
+        representationCache.write(gameRepresentation, MediaType.APPLICATION_JSON, new ByteArrayOutputStream());
+        representationCache.write(doorsRepresentation, MediaType.APPLICATION_JSON, new ByteArrayOutputStream());
+        representationCache.write(gameRepresentation, MediaType.APPLICATION_JSON, new ByteArrayOutputStream());
+        representationCache.write(pageRepresentation, MediaType.APPLICATION_JSON, new ByteArrayOutputStream());
+
+        assertEquals(2, representationCache.size());
+        assertTrue(representationCache.contains(gameRepresentation, MediaType.APPLICATION_JSON));
+        assertFalse(representationCache.contains(doorsRepresentation, MediaType.APPLICATION_JSON));
+        assertTrue(representationCache.contains(pageRepresentation, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void staysBounded() throws Exception {
+        RepresentationCache representationCache = new RepresentationCache(new RepresentationWriter(), 2);
+        Game game = createGame(1L);
+
+        for (int page = 0; page < 3; page++) {
+            for (int size = 1; size < 4; size++) {
+                Representation representation = new Representation(Representation.Type.DOORS, game, game.getState(), GAMES_URI, page, size);
+                representationCache.write(representation, MediaType.APPLICATION_JSON, new ByteArrayOutputStream());
+                assertTrue(representationCache.contains(representation, MediaType.APPLICATION_JSON));
+            }
+        }
+
+        assertEquals(2, representationCache.size());
+    }
+
+    private String render(Representation.Type type, Game game, MediaType mediaType) throws Exception {
+        return render(new Representation(type, game, game.getState(), GAMES_URI), mediaType);
+    }
+
+    private String render(Representation representation, MediaType mediaType) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.representationCache.write(representation, mediaType, out);
+        return out.toString("UTF-8");
+    }
+
+    private static Game createGame(Long id) {
+        Set<Door> doors = new HashSet<Door>();
+        doors.add(new Door(0L, DoorContent.SMALL_FURRY_ANIMAL));
+        doors.add(new Door(1L, DoorContent.SMALL_FURRY_ANIMAL));
+        doors.add(new Door(2L, DoorContent.JUERGEN));
+        return new Game(id, doors);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import com.nebhale.letsmakeadeal.Game;
+
+public final class RepresentationWriterTest {
+
+    private static final String GAMES_URI = "http://localhost/games";
+
+    private final RepresentationWriter representationWriter = new RepresentationWriter();
+
+    private final Game game = new Game(7L, 3, 2, 1, null);
+
+    @Test
+    public void gameJson() throws Exception {
+        assertEquals("{\"links\":[{\"rel\":\"self\",\"href\":\"http://localhost/games/7\"}," //
+            + "{\"rel\":\"doors\",\"href\":\"http://localhost/games/7/doors\"}," //
+            + "{\"rel\":\"history\",\"href\":\"http://localhost/games/7/history\"}],\"status\":\"AWAITING_INITIAL_SELECTION\"}", //
+            write(new Representation(Representation.Type.GAME, this.game, this.game.getState(), GAMES_URI), MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void doorsPageJson() throws Exception {
+        assertEquals("{\"links\":[{\"rel\":\"self\",\"href\":\"http://localhost/games/7/doors?page=1&size=2\"}," //
+            + "{\"rel\":\"previous\",\"href\":\"http://localhost/games/7/doors?page=0&size=2\"}]," //
+            + "\"doors\":[{\"links\":[{\"rel\":\"self\",\"href\":\"http://localhost/games/7/doors/2\"}],\"content\":\"UNKNOWN\"," //
+            + "\"status\":\"CLOSED\"}]}", //
+            write(new Representation(Representation.Type.DOORS, this.game, this.game.getState(), GAMES_URI, 1, 2), MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void doorsPageXml() throws Exception {
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><door xmlns:atom=\"http://www.w3.org/2005/Atom\">" //
+            + "<atom:link rel=\"self\" href=\"http://localhost/games/7/doors?page=1&amp;size=2\"/>" //
+            + "<atom:link rel=\"previous\" href=\"http://localhost/games/7/doors?page=0&amp;size=2\"/>" //
+            + "<door content=\"UNKNOWN\" status=\"CLOSED\"><atom:link rel=\"self\" href=\"http://localhost/games/7/doors/2\"/></door></door>", //
+            write(new Representation(Representation.Type.DOORS, this.game, this.game.getState(), GAMES_URI, 1, 2), MediaType.TEXT_XML));
+    }
+
+    @Test
+    public void countLinks() {
+        long state = this.game.getState();
+        assertEquals(3, RepresentationWriter.countLinks(new Representation(Representation.Type.GAME, this.game, state, GAMES_URI)));
+        assertEquals(4, RepresentationWriter.countLinks(new Representation(Representation.Type.DOORS, this.game, state, GAMES_URI)));
+        assertEquals(4, RepresentationWriter.countLinks(new Representation(Representation.Type.DOORS, this.game, state, GAMES_URI, 0, 2)));
+        assertEquals(2, RepresentationWriter.countLinks(new Representation(Representation.Type.DOORS, this.game, state, GAMES_URI, 2, 2)));
+    }
+
+    private String write(Representation representation, MediaType mediaType) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.representationWriter.write(representation, mediaType, out);
+        return out.toString("UTF-8");
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+public final class RequestExecutorTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final RequestExecutor requestExecutor = new RequestExecutor(1, 2);
+
+    private final Callable<String> blocker = new Callable<String>() {
+
+        public String call() throws InterruptedException {
+            RequestExecutorTest.this.started.countDown();
+            RequestExecutorTest.this.release.await();
+            return "released";
+        }
+    };
+
+    @After
+    public void after() {
+        this.release.countDown();
+        this.requestExecutor.stop();
+    }
+
+    @Test
+    public void inline() {
+        RequestExecutor requestExecutor = new RequestExecutor(0, 0);
+
+        DeferredResult<String> result = requestExecutor.submit(new Callable<String>() {
+
+            public String call() {
+                return "inline";
+            }
+        });
+
+        assertTrue(result.isSetOrExpired());
+        assertEquals(0, requestExecutor.getQueueCapacity());
+    }
+
+    @Test
+    public void queueDepthAndRejection() throws InterruptedException {
+        this.requestExecutor.submit(this.blocker);
+        this.started.await();
+
+        this.requestExecutor.submit(this.blocker);
+        this.requestExecutor.submit(this.blocker);
+        assertEquals(1, this.requestExecutor.getActiveCount());
+        assertEquals(2, this.requestExecutor.getQueueDepth());
+        assertEquals(2, this.requestExecutor.getQueueCapacity());
+
+        try {
+            this.requestExecutor.submit(this.blocker);
+        } catch (RejectedExecutionException e) {
+            assertEquals("More than 2 requests are waiting to be processed", e.getMessage());
+        }
+        assertEquals(1, this.requestExecutor.getRejectedCount());
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.anyObject;
+import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.mock.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.mock.servlet.MockMvc;
+import org.springframework.test.web.mock.servlet.MvcResult;
+import org.springframework.test.web.mock.servlet.RequestBuilder;
+import org.springframework.test.web.mock.servlet.ResultActions;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import com.nebhale.letsmakeadeal.GameSimulator;
+import com.nebhale.letsmakeadeal.PlayerStrategy;
+import com.nebhale.letsmakeadeal.Simulation;
+import com.nebhale.letsmakeadeal.WinRate;
+
+public final class SimulationsControllerTest {
+
+    private final GameSimulator gameSimulator = mock(GameSimulator.class);
+
+    private final MockMvc mockMvc = standaloneSetup(
+        new SimulationsController(gameSimulator, new SimulationResourceAssembler(), 0, 1000, 1000)).build();
+
+    @Test
+    public void simulate() throws Exception {
+        when(this.gameSimulator.simulate(eq(100L), eq(PlayerStrategy.RANDOM), eq(7L), any(AtomicBoolean.class))).thenReturn(
+            new Simulation(PlayerStrategy.RANDOM, 7, new WinRate(40, 60), new WinRate(10, 40), 2));
+
+        perform(post("/simulations").param("games", "100").param("strategy", "random").param("seed", "7") //
+        .accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.strategy").value("RANDOM")) //
+        .andExpect(jsonPath("$.seed").value(7)) //
+        .andExpect(jsonPath("$.gamesPerSecond").value(50000.0)) //
+        .andExpect(jsonPath("$.total.games").value(100)) //
+        .andExpect(jsonPath("$.total.wins").value(50)) //
+        .andExpect(jsonPath("$.switched.winRate").value(40.0 / 60)) //
+        .andExpect(jsonPath("$.stayed.winRate").value(0.25));
+    }
+
+    @Test
+    public void simulateDefaultStrategy() throws Exception {
+        when(this.gameSimulator.simulate(eq(100L), eq(PlayerStrategy.SWITCH), anyLong(), any(AtomicBoolean.class))).thenReturn(
+            new Simulation(PlayerStrategy.SWITCH, 3, new WinRate(67, 100), new WinRate(0, 0), 0));
+
+        perform(post("/simulations").param("games", "100").accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.strategy").value("SWITCH")) //
+        .andExpect(jsonPath("$.stayed.games").value(0));
+    }
+
+    @Test
+    public void simulateWhileBusy() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        when(this.gameSimulator.simulate(anyLong(), (PlayerStrategy) anyObject(), anyLong(), any(AtomicBoolean.class))).thenAnswer(
+            new Answer<Simulation>() {
+
+                public Simulation answer(InvocationOnMock invocation) throws InterruptedException {
+                    started.countDown();
+                    finish.await();
+                    return new Simulation(PlayerStrategy.SWITCH, 3, new WinRate(67, 100), new WinRate(0, 0), 0);
+                }
+            });
+
+        SimulationsController simulationsController = new SimulationsController(this.gameSimulator, new SimulationResourceAssembler(), 1,
+            1000, 1000);
+        try {
+            MockMvc mockMvc = standaloneSetup(simulationsController).build();
+            mockMvc.perform(post("/simulations").param("games", "100").accept(MediaType.APPLICATION_JSON));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            mockMvc.perform(post("/simulations").param("games", "100").accept(MediaType.APPLICATION_JSON)) //
+            .andExpect(status().isServiceUnavailable());
+        } finally {
+            finish.countDown();
+            simulationsController.stop();
+        }
+    }
+
+    @Test
+    public void simulateIllegalGames() throws Exception {
+        this.mockMvc.perform(post("/simulations").param("games", "1001")) //
+        .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void simulateIllegalStrategy() throws Exception {
+        this.mockMvc.perform(post("/simulations").param("games", "100").param("strategy", "dither")) //
+        .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        ResultActions resultActions = this.mockMvc.perform(requestBuilder);
+
+        MvcResult mvcResult = resultActions.andReturn();
+        if (WebAsyncUtils.getAsyncManager(mvcResult.getRequest()).isConcurrentHandlingStarted()) {
+            mvcResult.getAsyncResult();
+            return this.mockMvc.perform(asyncDispatch(mvcResult));
+        }
+
+        return resultActions;
+    }
+}
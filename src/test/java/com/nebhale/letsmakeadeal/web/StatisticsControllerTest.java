@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nebhale.letsmakeadeal.web;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.mock.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.mock.servlet.result.MockMvcResultMatchers.xpath;
+import static org.springframework.test.web.mock.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.mock.servlet.MockMvc;
+
+import com.nebhale.letsmakeadeal.GameStatistics;
+import com.nebhale.letsmakeadeal.Outcomes;
+
+public final class StatisticsControllerTest {
+
+    private final GameStatistics gameStatistics = mock(GameStatistics.class);
+
+    private final MockMvc mockMvc = standaloneSetup(new StatisticsController(gameStatistics, new StatisticsResourceAssembler())).build();
+
+    @Before
+    public void before() {
+        when(this.gameStatistics.getTotal()).thenReturn(new Outcomes(2, 1, 1, 4));
+        when(this.gameStatistics.getLastMinute()).thenReturn(new Outcomes(1, 0, 0, 1));
+        when(this.gameStatistics.getLastHour()).thenReturn(new Outcomes(0, 0, 0, 0));
+    }
+
+    @Test
+    public void showStatisticsJson() throws Exception {
+        this.mockMvc.perform(get("/stats").accept(MediaType.APPLICATION_JSON)) //
+        .andExpect(status().isOk()) //
+        .andExpect(jsonPath("$.total.games").value(8)) //
+        .andExpect(jsonPath("$.total.switched").value(3)) //
+        .andExpect(jsonPath("$.total.switchRate").value(0.375)) //
+        .andExpect(jsonPath("$.total.switchedWinRate").value(2.0 / 3)) //
+        .andExpect(jsonPath("$.total.stayedWinRate").value(0.2)) //
+        .andExpect(jsonPath("$.lastMinute.games").value(2)) //
+        .andExpect(jsonPath("$.lastHour.games").value(0)) //
+        .andExpect(jsonPath("$.lastHour.switchRate").value(0.0)) //
+        .andExpect(jsonPath("$.links[?(@.rel==self)].href[0]").value("http://localhost/stats"));
+    }
+
+    @Test
+    public void showStatisticsXml() throws Exception {
+        this.mockMvc.perform(get("/stats").accept(MediaType.TEXT_XML)) //
+        .andExpect(status().isOk()) //
+        .andExpect(xpath("/statistics/total/@games").string("8")) //
+        .andExpect(xpath("/statistics/lastMinute/@switched").string("1"));
+    }
+}